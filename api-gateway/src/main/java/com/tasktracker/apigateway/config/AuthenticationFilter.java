@@ -1,5 +1,6 @@
 package com.tasktracker.apigateway.config;
 
+import com.tasktracker.apigateway.exceptions.BadRequestException;
 import io.jsonwebtoken.Claims;
 import lombok.AllArgsConstructor;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
@@ -11,12 +12,15 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+/**
+ * Checks the token of requests to the routes whose policy requires it, see {@link GatewayConfig}.
+ */
 @Component
 @AllArgsConstructor
 public class AuthenticationFilter implements GatewayFilter {
 
     private final JWTUtil jwtUtil;
-    private final RouterValidator routerValidator;
+    private final IdentityAssertionSigner identityAssertionSigner;
 
 
 
@@ -24,18 +28,16 @@ public class AuthenticationFilter implements GatewayFilter {
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
 
-        if (routerValidator.isSecured.test(request)) {
-            if (this.isAuthMissing(request))
-                return this.onError(exchange, "Authorization header is missing in request", HttpStatus.UNAUTHORIZED);
+        if (this.isAuthMissing(request))
+            return this.onError(exchange, "Authorization header is missing in request", HttpStatus.UNAUTHORIZED);
 
-            final String token = this.getAuthHeader(request);
+        final String token = this.getAuthHeader(request);
 
-            if (jwtUtil.isInvalid(token))
-                return this.onError(exchange, "Authorization header is invalid", HttpStatus.UNAUTHORIZED);
-
-            this.populateRequestWithHeaders(exchange, token);
-        }
-        return chain.filter(exchange);
+        return jwtUtil.getValidClaims(token)
+                .map(claims -> this.populateRequestWithHeaders(exchange, claims))
+                .flatMap(chain::filter)
+                .onErrorResume(BadRequestException.class,
+                        exception -> this.onError(exchange, "Authorization header is invalid", HttpStatus.UNAUTHORIZED));
     }
 
     private Mono<Void> onError(ServerWebExchange exchange, String err, HttpStatus httpStatus) {
@@ -52,11 +54,19 @@ public class AuthenticationFilter implements GatewayFilter {
         return !request.getHeaders().containsKey("Authorization");
     }
 
-    private void populateRequestWithHeaders(ServerWebExchange exchange, String token) {
-        Claims claims = jwtUtil.getAllClaimsFromToken(token);
-        exchange.getRequest().mutate()
-                .header("id", String.valueOf(claims.get("id")))
+    private ServerWebExchange populateRequestWithHeaders(ServerWebExchange exchange, Claims claims) {
+        String id = String.valueOf(claims.get("id"));
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    headers.set("id", id);
+                    // never pass on an assertion made up by the client
+                    headers.remove(IdentityAssertionSigner.IDENTITY_ASSERTION_HEADER);
+                    if (identityAssertionSigner.isEnabled()) {
+                        headers.set(IdentityAssertionSigner.IDENTITY_ASSERTION_HEADER, identityAssertionSigner.sign(id));
+                    }
+                })
                 .build();
+        return exchange.mutate().request(request).build();
     }
 
 }
@@ -1,32 +1,86 @@
 package com.tasktracker.apigateway.config;
 
+import com.tasktracker.apigateway.config.RouteTable.Route;
+import com.tasktracker.apigateway.config.RouteTable.RoutePolicy;
 import lombok.AllArgsConstructor;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @AllArgsConstructor
 public class GatewayConfig {
 
     private final AuthenticationFilter filter;
+    private final RateLimitFilter rateLimitFilter;
+    private final ResponseCacheFilter responseCacheFilter;
 
     @Bean
-    public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
-        return builder.routes()
-                .route("task-tracker", r -> r.path("/api/boards/**")
-                        .filters(f -> f.filter(filter))
-                        .uri("lb://task-tracker"))
-                .route("task-tracker", r -> r.path("/api/task-states/**")
-                        .filters(f -> f.filter(filter))
-                        .uri("lb://task-tracker"))
-                .route("task-tracker", r -> r.path("/api/tasks/**")
-                        .filters(f -> f.filter(filter))
-                        .uri("lb://task-tracker"))
-                .route("authorization-service", r -> r.path("/api/auth/**")
-                        .filters(f -> f.filter(filter))
-                        .uri("lb://authorization-service"))
+    public RouteTable routeTable() {
+        RoutePolicy taskTracker = RoutePolicy.builder()
+                .rateLimited(true)
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        RoutePolicy taskTrackerReads = RoutePolicy.builder()
+                .rateLimited(true)
+                .cacheable(true)
+                .timeout(Duration.ofSeconds(10))
+                .build();
+        return RouteTable.builder()
+                .route("boards", "/api/boards", "lb://task-tracker", taskTrackerReads)
+                .route("board-import", "/api/boards/*/import", "lb://task-tracker", RoutePolicy.builder()
+                        .rateLimited(true)
+                        .timeout(Duration.ofSeconds(60))
+                        .build())
+                .route("task-states", "/api/task-states", "lb://task-tracker", taskTrackerReads)
+                .route("tasks", "/api/tasks", "lb://task-tracker", taskTracker)
+                .route("auth", "/api/auth", "lb://authorization-service", RoutePolicy.builder()
+                        .timeout(Duration.ofSeconds(10))
+                        .build())
+                .route("registration", "/api/auth/registration", "lb://authorization-service", RoutePolicy.builder()
+                        .authRequired(false)
+                        .timeout(Duration.ofSeconds(10))
+                        .build())
+                .route("login", "/api/auth/login", "lb://authorization-service", RoutePolicy.builder()
+                        .authRequired(false)
+                        .timeout(Duration.ofSeconds(10))
+                        .build())
                 .build();
     }
+
+    /**
+     * One gateway route per entry of the route table. Every route's predicate asks the table for the
+     * request's route, which is looked up once per request, and the filters are picked here from the policy.
+     */
+    @Bean
+    public RouteLocator customRouteLocator(RouteLocatorBuilder builder, RouteTable routeTable) {
+        RouteLocatorBuilder.Builder routes = builder.routes();
+        for (Route route : routeTable.getRoutes()) {
+            RoutePolicy policy = route.getPolicy();
+            routes.route(route.getId(), r -> r.predicate(exchange -> routeTable.match(exchange).orElse(null) == route)
+                    .filters(f -> {
+                        // in this order, all before the response is written, see ResponseCacheFilter.ORDER
+                        if (policy.isAuthRequired()) {
+                            f.filter(filter, ResponseCacheFilter.ORDER - 2);
+                        }
+                        if (policy.isRateLimited()) {
+                            f.filter(rateLimitFilter.forRoute(route.getId()), ResponseCacheFilter.ORDER - 1);
+                        }
+                        if (policy.isAuthRequired() && responseCacheFilter.isEnabled()) {
+                            // every authenticated route, changes made through any of them invalidate
+                            f.filter(responseCacheFilter.forRoute(policy.isCacheable()), ResponseCacheFilter.ORDER);
+                        }
+                        if (policy.getTimeout() != null) {
+                            f.metadata(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, policy.getTimeout().toMillis());
+                        }
+                        return f;
+                    })
+                    .uri(route.getUri()));
+        }
+        return routes.build();
+    }
 }
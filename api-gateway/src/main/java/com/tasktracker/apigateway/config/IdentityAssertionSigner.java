@@ -0,0 +1,52 @@
+package com.tasktracker.apigateway.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * Signs the identity of requests whose token has been verified, so services behind the gateway
+ * can trust it without verifying the token again.
+ * <p>
+ * An assertion is {@code <person id>:<epoch millis>:<signature>}, the signature being the base64url HMAC-SHA256
+ * of {@code <person id>:<epoch millis>} with {@code api-gateway.identity.secret}. Without the secret
+ * no assertions are attached.
+ */
+@Component
+public class IdentityAssertionSigner {
+
+    public static final String IDENTITY_ASSERTION_HEADER = "X-Identity-Assertion";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+
+    public IdentityAssertionSigner(@Value("${api-gateway.identity.secret:}") String secret) {
+        this.key = secret.isEmpty() ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return key != null;
+    }
+
+    public String sign(String personId) {
+        String payload = personId + ":" + System.currentTimeMillis();
+        return payload + ":" + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
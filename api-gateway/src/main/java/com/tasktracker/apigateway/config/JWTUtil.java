@@ -1,9 +1,12 @@
 package com.tasktracker.apigateway.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.tasktracker.apigateway.exceptions.BadRequestException;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
 
@@ -11,10 +14,20 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
-import java.security.Key;
-import java.util.Date;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 
+/**
+ * Parses and verifies the tokens of incoming requests.
+ * <p>
+ * Claims of verified tokens are kept by the SHA-256 digest of the token until the token expires,
+ * so a client sending the same token on every request is verified once. Tokens without an expiration
+ * date are verified every time.
+ */
 @Component
 @RequiredArgsConstructor
 public class JWTUtil {
@@ -22,28 +35,80 @@ public class JWTUtil {
     @Value("${jwt_secret}")
     private String secret;
 
-    private Key key;
+    @Value("${api-gateway.jwt.verified-tokens.max-size:10000}")
+    private long maxSize;
+
+    private JwtParser parser;
+
+    private Cache<String, Claims> verifiedTokens;
 
     @PostConstruct
     public void init(){
-        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(secret.getBytes())).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpires())
+                .build();
     }
-    public Claims getAllClaimsFromToken(String token) {
-        Claims claims;
-        try {
-            token = token.substring(7);
-            claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+
+    /**
+     * Returns the claims of the token in the {@code Authorization} header, or fails with {@link BadRequestException}
+     * when the token is malformed, forged or expired. Verification is a few microseconds of hashing,
+     * so it runs on the calling thread and never blocks on I/O.
+     */
+    public Mono<Claims> getValidClaims(String authorizationHeader) {
+        return Mono.fromCallable(() -> getAllClaimsFromToken(authorizationHeader));
+    }
+
+    public Claims getAllClaimsFromToken(String authorizationHeader) {
+        String digest = digest(authorizationHeader);
+        Claims claims = verifiedTokens.getIfPresent(digest);
+        if (claims != null) {
             return claims;
+        }
+
+        claims = parseClaims(authorizationHeader);
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(digest, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Parses and verifies the token every time, bypassing the verified tokens.
+     */
+    public Claims parseClaims(String authorizationHeader) {
+        try {
+            return parser.parseClaimsJws(authorizationHeader.substring(7)).getBody();
         }catch (Exception e){
             throw new BadRequestException(HttpStatusCode.valueOf(400), "invalid jwt token");
         }
     }
 
-    private boolean isTokenExpired(String token) {
-        return this.getAllClaimsFromToken(token).getExpiration().before(new Date());
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
     }
 
-    public boolean isInvalid(String token) {
-        return this.isTokenExpired(token);
+    private static class UntilTokenExpires implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+            return Math.max(0, (claims.getExpiration().getTime() - System.currentTimeMillis()) * 1_000_000);
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,108 @@
+package com.tasktracker.apigateway.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits how often each person may call a route, so one client can't use up the services behind the gateway.
+ * <p>
+ * Every person gets a token bucket per route, holding {@code capacity} requests and refilled with
+ * {@code refill-per-second} requests, read from {@code api-gateway.rate-limit.<route>.*} and falling back
+ * to {@code api-gateway.rate-limit.*}. Throttled requests are answered with {@code 429} and {@code Retry-After}.
+ * Has to run after {@link AuthenticationFilter}, which sets the {@code id} header; requests without it are
+ * not limited.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter {
+
+    private final Environment environment;
+
+    public GatewayFilter forRoute(String route) {
+        long capacity = getLimit(route, "capacity", 50L);
+        long refillPerSecond = getLimit(route, "refill-per-second", 20L);
+        long maxSize = getLimit(route, "max-size", 100_000L);
+        Duration idle = environment.getProperty("api-gateway.rate-limit.idle-eviction", Duration.class, Duration.ofMinutes(10));
+
+        long emissionIntervalNanos = TimeUnit.SECONDS.toNanos(1) / refillPerSecond;
+        // a bucket idle for longer than it takes to refill is full again, dropping it loses nothing
+        Duration refillTime = Duration.ofNanos(emissionIntervalNanos * capacity);
+        Cache<String, Bucket> buckets = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(idle.compareTo(refillTime) > 0 ? idle : refillTime)
+                .build();
+
+        return (exchange, chain) -> {
+            String personId = exchange.getRequest().getHeaders().getFirst("id");
+            if (personId == null) {
+                return chain.filter(exchange);
+            }
+
+            long now = System.nanoTime();
+            long waitNanos = buckets.get(personId, id -> new Bucket(emissionIntervalNanos, capacity, now))
+                    .tryAcquire(now);
+            if (waitNanos == 0) {
+                return chain.filter(exchange);
+            }
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds(waitNanos)));
+            return response.setComplete();
+        };
+    }
+
+    /**
+     * Whole seconds to wait, rounded up, so a client retrying after them finds a token.
+     */
+    static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private long getLimit(String route, String name, long defaultValue) {
+        return environment.getProperty(String.format("api-gateway.rate-limit.%s.%s", route, name), Long.class,
+                environment.getProperty(String.format("api-gateway.rate-limit.%s", name), Long.class, defaultValue));
+    }
+
+    /**
+     * Token bucket kept as the time at which it will be full again, so taking a token is a single compare-and-set.
+     */
+    static class Bucket {
+
+        private final long emissionIntervalNanos;
+        private final long burstNanos;
+        private final AtomicLong fullAt;
+
+        Bucket(long emissionIntervalNanos, long capacity, long now) {
+            this.emissionIntervalNanos = emissionIntervalNanos;
+            this.burstNanos = emissionIntervalNanos * capacity;
+            this.fullAt = new AtomicLong(now);
+        }
+
+        /**
+         * Takes a token, returns {@code 0} on success or how long to wait until one is available.
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + emissionIntervalNanos;
+                if (next - now > burstNanos) {
+                    return next - now - burstNanos;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
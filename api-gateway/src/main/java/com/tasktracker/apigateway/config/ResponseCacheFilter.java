@@ -0,0 +1,283 @@
+package com.tasktracker.apigateway.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Answers repeated reads of cacheable routes from the gateway, see {@link RouteTable.RoutePolicy#isCacheable()}.
+ * Off unless {@code api-gateway.response-cache.enabled} is set.
+ * <p>
+ * Only {@code 200} responses to {@code GET} are kept, for as long as their {@code Cache-Control} allows
+ * ({@code s-maxage}, then {@code max-age}), capped by {@code max-age}. Responses marked {@code no-store} or
+ * {@code private} are never kept. Entries are keyed by person and weighed by their size. Expired entries with
+ * an ETag are revalidated with the service, and clients sending a matching {@code If-None-Match} get a {@code 304}.
+ * <p>
+ * A response carrying {@code X-Cache-Invalidate} drops everything kept for its person. Every person has a
+ * generation that is part of the key, and invalidating replaces it, so responses read before a change are
+ * never served after it, even when they arrive later. Has to run after {@link AuthenticationFilter}, which
+ * sets the {@code id} header.
+ */
+@Component
+public class ResponseCacheFilter {
+
+    public static final String CACHE_INVALIDATE_HEADER = "X-Cache-Invalidate";
+
+    /**
+     * Right before {@link NettyWriteResponseFilter}, which writes the response it was given, so the response
+     * decorated here is the one written.
+     */
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private static final List<String> UNCACHED_HEADERS = List.of(HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION, HttpHeaders.DATE, HttpHeaders.SET_COOKIE,
+            CACHE_INVALIDATE_HEADER);
+
+    @Getter
+    @Value("${api-gateway.response-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${api-gateway.response-cache.max-weight:64MB}")
+    private DataSize maxWeight;
+
+    @Value("${api-gateway.response-cache.max-entry-size:1MB}")
+    private DataSize maxEntrySize;
+
+    @Value("${api-gateway.response-cache.max-age:5m}")
+    private Duration maxAge;
+
+    @Value("${api-gateway.response-cache.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    @Value("${api-gateway.response-cache.max-persons:100000}")
+    private long maxPersons;
+
+    private Cache<Key, CachedResponse> responses;
+
+    // dropping a generation only orphans the entries made under it, so it is always safe
+    private Cache<String, Object> generations;
+
+    @PostConstruct
+    public void init() {
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxWeight.toBytes())
+                .weigher((Key key, CachedResponse response) -> key.uri().length() + response.body().length)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(maxPersons)
+                .expireAfterAccess(expireAfterWrite)
+                .build();
+    }
+
+    public GatewayFilter forRoute(boolean cacheable) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String personId = request.getHeaders().getFirst("id");
+            if (personId == null) {
+                return chain.filter(exchange);
+            }
+            ServerHttpResponse response = exchange.getResponse();
+            response.beforeCommit(() -> {
+                if (response.getHeaders().containsKey(CACHE_INVALIDATE_HEADER)) {
+                    generations.invalidate(personId);
+                    response.getHeaders().remove(CACHE_INVALIDATE_HEADER);
+                }
+                return Mono.empty();
+            });
+            if (!cacheable || !HttpMethod.GET.equals(request.getMethod())) {
+                return chain.filter(exchange);
+            }
+
+            Key key = new Key(personId, generations.get(personId, id -> new Object()),
+                    request.getURI().getRawQuery() != null
+                            ? request.getURI().getRawPath() + "?" + request.getURI().getRawQuery()
+                            : request.getURI().getRawPath());
+            CachedResponse cached = responses.getIfPresent(key);
+            if (cached != null && cached.isFresh()) {
+                return serve(exchange, cached);
+            }
+            CachedResponse revalidated = null;
+            if (cached != null && cached.eTag() != null && request.getHeaders().getIfNoneMatch().isEmpty()) {
+                revalidated = cached;
+                request = request.mutate().header(HttpHeaders.IF_NONE_MATCH, cached.eTag()).build();
+            }
+            return chain.filter(exchange.mutate()
+                    .request(request)
+                    .response(new CachingResponse(response, key, revalidated))
+                    .build());
+        };
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().putAll(cached.headers());
+        if (cached.eTag() != null && matches(exchange.getRequest().getHeaders().getIfNoneMatch(), cached.eTag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, String eTag) {
+        String tag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        for (String candidate : ifNoneMatch) {
+            if (candidate.equals("*") || (candidate.startsWith("W/") ? candidate.substring(2) : candidate).equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * How long the response may be kept without revalidating, or {@code null} when it may not be kept at all.
+     */
+    private Duration freshness(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl == null) {
+            return null;
+        }
+        Duration maxAgeDirective = null;
+        Duration sMaxAgeDirective = null;
+        boolean noCache = false;
+        for (String directive : cacheControl.split(",")) {
+            directive = directive.trim().toLowerCase(Locale.ROOT);
+            if (directive.equals("no-store") || directive.equals("private")) {
+                return null;
+            }
+            try {
+                if (directive.equals("no-cache")) {
+                    noCache = true;
+                } else if (directive.startsWith("s-maxage=")) {
+                    sMaxAgeDirective = Duration.ofSeconds(Long.parseLong(directive.substring(9)));
+                } else if (directive.startsWith("max-age=")) {
+                    maxAgeDirective = Duration.ofSeconds(Long.parseLong(directive.substring(8)));
+                }
+            } catch (NumberFormatException exception) {
+                return null;
+            }
+        }
+        Duration freshness = noCache ? Duration.ZERO : sMaxAgeDirective != null ? sMaxAgeDirective : maxAgeDirective;
+        if (freshness == null) {
+            return null;
+        }
+        return freshness.compareTo(maxAge) > 0 ? maxAge : freshness;
+    }
+
+    private record Key(String personId, Object generation, String uri) {
+    }
+
+    private record CachedResponse(HttpHeaders headers, String eTag, byte[] body, long freshUntil) {
+
+        boolean isFresh() {
+            return System.nanoTime() - freshUntil < 0;
+        }
+    }
+
+    /**
+     * Keeps a copy of the body while it is written, as long as the response may be kept and fits
+     * {@code max-entry-size}, and answers with the kept copy when the service confirms it is still current.
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final Key key;
+        private final CachedResponse revalidated;
+
+        CachingResponse(ServerHttpResponse delegate, Key key, CachedResponse revalidated) {
+            super(delegate);
+            this.key = key;
+            this.revalidated = revalidated;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            Duration freshness = freshness(headers);
+            if (revalidated != null && hasStatus(HttpStatus.NOT_MODIFIED)) {
+                if (freshness != null) {
+                    responses.put(key, new CachedResponse(revalidated.headers(), revalidated.eTag(), revalidated.body(),
+                            System.nanoTime() + freshness.toNanos()));
+                }
+                setStatusCode(HttpStatus.OK);
+                headers.putAll(revalidated.headers());
+                headers.remove(HttpHeaders.TRANSFER_ENCODING);
+                headers.setContentLength(revalidated.body().length);
+                return Flux.from(body).doOnNext(DataBufferUtils::release)
+                        .then(super.writeWith(Mono.just(bufferFactory().wrap(revalidated.body()))));
+            }
+            if (!hasStatus(HttpStatus.OK) || freshness == null
+                    || (freshness.isZero() && headers.getETag() == null)
+                    || headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                    || headers.getContentLength() > maxEntrySize.toBytes()) {
+                return super.writeWith(body);
+            }
+
+            HttpHeaders cachedHeaders = new HttpHeaders();
+            cachedHeaders.putAll(headers);
+            UNCACHED_HEADERS.forEach(cachedHeaders::remove);
+            String eTag = headers.getETag();
+            long freshUntil = System.nanoTime() + freshness.toNanos();
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            boolean[] tooLarge = {false};
+            return super.writeWith(Flux.from(body)
+                    .map(buffer -> {
+                        if (tooLarge[0]) {
+                            return buffer;
+                        }
+                        if (copy.size() + buffer.readableByteCount() > maxEntrySize.toBytes()) {
+                            tooLarge[0] = true;
+                            return buffer;
+                        }
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.read(bytes);
+                        DataBufferUtils.release(buffer);
+                        copy.writeBytes(bytes);
+                        return bufferFactory().wrap(bytes);
+                    })
+                    .doOnComplete(() -> {
+                        if (!tooLarge[0]) {
+                            responses.put(key, new CachedResponse(HttpHeaders.readOnlyHttpHeaders(cachedHeaders),
+                                    eTag, copy.toByteArray(), freshUntil));
+                        }
+                    }));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            // a 304 completed without writing a body is answered with the kept copy all the same
+            if (revalidated != null && hasStatus(HttpStatus.NOT_MODIFIED)) {
+                return writeWith(Flux.empty());
+            }
+            return super.setComplete();
+        }
+
+        private boolean hasStatus(HttpStatus status) {
+            return getStatusCode() != null && getStatusCode().value() == status.value();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.tasktracker.apigateway.config;
+
+import lombok.Value;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Routes known to the gateway, compiled at startup into a trie of path segments.
+ * <p>
+ * A route covers its path and everything below it, the most specific route wins. A {@code *} segment
+ * matches any single segment, literal segments are preferred over it. Paths with {@code .} or {@code ..}
+ * segments, even encoded, match nothing, so they can't be used to reach a route through one with a weaker policy.
+ * The route matched for a request is kept in the exchange attributes, so every request is looked up once.
+ */
+public class RouteTable {
+
+    public static final String MATCHED_ROUTE_ATTR = RouteTable.class.getName() + ".matchedRoute";
+
+    private final Node root = new Node();
+    private final List<Route> routes;
+
+    private RouteTable(List<Route> routes) {
+        Set<String> ids = new HashSet<>();
+        for (Route route : routes) {
+            if (!ids.add(route.getId())) {
+                throw new IllegalStateException(String.format("Route \"%s\" is declared twice", route.getId()));
+            }
+            Node node = root;
+            for (String segment : segments(route.getPath())) {
+                node = node.children.computeIfAbsent(segment, key -> new Node());
+            }
+            if (node.route != null) {
+                throw new IllegalStateException(String.format("Routes \"%s\" and \"%s\" share the path %s",
+                        node.route.getId(), route.getId(), route.getPath()));
+            }
+            node.route = route;
+        }
+        this.routes = Collections.unmodifiableList(routes);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    public Optional<Route> match(ServerWebExchange exchange) {
+        Optional<Route> route = exchange.getAttribute(MATCHED_ROUTE_ATTR);
+        if (route == null) {
+            route = Optional.ofNullable(match(exchange.getRequest().getPath().value()));
+            exchange.getAttributes().put(MATCHED_ROUTE_ATTR, route);
+        }
+        return route;
+    }
+
+    /**
+     * Returns the most specific route covering the path, or {@code null}.
+     */
+    public Route match(String path) {
+        for (int from = 0, to; from < path.length(); from = to + 1) {
+            to = path.indexOf('/', from);
+            if (to < 0) {
+                to = path.length();
+            }
+            if (isDotSegment(path, from, to)) {
+                return null;
+            }
+        }
+        return match(root, path, 0, null);
+    }
+
+    private static Route match(Node node, String path, int from, Route best) {
+        if (node.route != null) {
+            best = node.route;
+        }
+        while (from < path.length() && path.charAt(from) == '/') {
+            from++;
+        }
+        if (from == path.length() || node.children.isEmpty()) {
+            return best;
+        }
+        int to = path.indexOf('/', from);
+        if (to < 0) {
+            to = path.length();
+        }
+        String segment = path.substring(from, to);
+        Node literal = node.children.get(segment);
+        Node wildcard = node.children.get("*");
+        Route route = literal != null ? match(literal, path, to, best) : best;
+        if (route != best || wildcard == null) {
+            return route;
+        }
+        return match(wildcard, path, to, best);
+    }
+
+    /**
+     * Whether the segment is {@code .} or {@code ..}, written plainly or percent-encoded.
+     */
+    private static boolean isDotSegment(String path, int from, int to) {
+        int dots = 0;
+        for (int i = from; i < to; dots++) {
+            if (path.charAt(i) == '.') {
+                i++;
+            } else if (path.regionMatches(true, i, "%2e", 0, 3)) {
+                i += 3;
+            } else {
+                return false;
+            }
+        }
+        return dots == 1 || dots == 2;
+    }
+
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Route route;
+    }
+
+    public static class Builder {
+
+        private final List<Route> routes = new ArrayList<>();
+
+        public Builder route(String id, String path, String uri, RoutePolicy policy) {
+            routes.add(new Route(id, path, uri, policy));
+            return this;
+        }
+
+        public RouteTable build() {
+            return new RouteTable(new ArrayList<>(routes));
+        }
+    }
+
+    @Value
+    public static class Route {
+        String id;
+        String path;
+        String uri;
+        RoutePolicy policy;
+    }
+
+    /**
+     * What the gateway does with the requests of a route. Limits of rate limited routes are configured
+     * by route id, see {@link RateLimitFilter}. Reads of cacheable routes may be answered by {@link ResponseCacheFilter}.
+     * Without a timeout the global response timeout applies.
+     */
+    @Value
+    @lombok.Builder
+    public static class RoutePolicy {
+        @lombok.Builder.Default
+        boolean authRequired = true;
+        boolean rateLimited;
+        boolean cacheable;
+        Duration timeout;
+    }
+}
@@ -0,0 +1,56 @@
+package com.tasktracker.apigateway.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long START = 1_000_000_000L;
+
+    @Test
+    void shouldLetBurstThrough() {
+        RateLimitFilter.Bucket bucket = new RateLimitFilter.Bucket(INTERVAL, 3, START);
+
+        assertEquals(0, bucket.tryAcquire(START));
+        assertEquals(0, bucket.tryAcquire(START));
+        assertEquals(0, bucket.tryAcquire(START));
+        assertEquals(INTERVAL, bucket.tryAcquire(START));
+    }
+
+    @Test
+    void shouldRefillOneTokenPerInterval() {
+        RateLimitFilter.Bucket bucket = new RateLimitFilter.Bucket(INTERVAL, 3, START);
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(START);
+        }
+
+        assertEquals(INTERVAL / 2, bucket.tryAcquire(START + INTERVAL / 2));
+        assertEquals(0, bucket.tryAcquire(START + INTERVAL));
+        assertEquals(INTERVAL, bucket.tryAcquire(START + INTERVAL));
+    }
+
+    @Test
+    void shouldNotSaveMoreThanCapacityWhileIdle() {
+        RateLimitFilter.Bucket bucket = new RateLimitFilter.Bucket(INTERVAL, 3, START);
+        long later = START + 100 * INTERVAL;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(later));
+        }
+        assertEquals(INTERVAL, bucket.tryAcquire(later));
+    }
+
+    @Test
+    void shouldRoundRetryAfterUp() {
+        long second = TimeUnit.SECONDS.toNanos(1);
+
+        assertEquals(1, RateLimitFilter.retryAfterSeconds(1));
+        assertEquals(1, RateLimitFilter.retryAfterSeconds(second));
+        assertEquals(2, RateLimitFilter.retryAfterSeconds(second + 1));
+        assertEquals(3, RateLimitFilter.retryAfterSeconds(5 * second / 2));
+    }
+}
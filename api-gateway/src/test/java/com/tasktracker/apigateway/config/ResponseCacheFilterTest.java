@@ -0,0 +1,174 @@
+package com.tasktracker.apigateway.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the filter in front of a fake service that answers with what the test sets and records what it was asked.
+ */
+class ResponseCacheFilterTest {
+
+    private final ResponseCacheFilter responseCacheFilter = new ResponseCacheFilter();
+    private final List<String> upstreamRequests = new ArrayList<>();
+
+    private String cacheControl;
+    private int version;
+    private Runnable duringRead;
+
+    private WebTestClient cacheableClient;
+    private WebTestClient uncacheableClient;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(responseCacheFilter, "enabled", true);
+        ReflectionTestUtils.setField(responseCacheFilter, "maxWeight", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(responseCacheFilter, "maxEntrySize", DataSize.ofKilobytes(64));
+        ReflectionTestUtils.setField(responseCacheFilter, "maxAge", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(responseCacheFilter, "expireAfterWrite", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(responseCacheFilter, "maxPersons", 100L);
+        responseCacheFilter.init();
+
+        cacheControl = "max-age=0, s-maxage=30";
+        version = 1;
+        cacheableClient = client(responseCacheFilter.forRoute(true));
+        uncacheableClient = client(responseCacheFilter.forRoute(false));
+    }
+
+    @Test
+    void shouldServeRepeatedReadsOfSamePerson() {
+        assertEquals("7 v1", read(cacheableClient, "7", "/api/boards/1/task-states"));
+        assertEquals("7 v1", read(cacheableClient, "7", "/api/boards/1/task-states"));
+        assertEquals(1, upstreamRequests.size());
+
+        assertEquals("8 v1", read(cacheableClient, "8", "/api/boards/1/task-states"));
+        read(cacheableClient, "7", "/api/boards/2/task-states");
+        read(cacheableClient, "7", "/api/boards/1/task-states?limit=10");
+        assertEquals(4, upstreamRequests.size());
+    }
+
+    @Test
+    void shouldNotKeepResponsesOfUncacheableRoutesOrMarkedNoStore() {
+        read(uncacheableClient, "7", "/api/tasks/1");
+        read(uncacheableClient, "7", "/api/tasks/1");
+        cacheControl = "no-store";
+        read(cacheableClient, "7", "/api/boards/1/task-states");
+        read(cacheableClient, "7", "/api/boards/1/task-states");
+
+        assertEquals(4, upstreamRequests.size());
+    }
+
+    @Test
+    void shouldDropResponsesOfPersonWhoMadeChange() {
+        read(cacheableClient, "7", "/api/boards/1/task-states");
+        read(cacheableClient, "8", "/api/boards/1/task-states");
+
+        // changes go through any authenticated route, cacheable or not
+        uncacheableClient.post().uri("/api/tasks/1").header("id", "7")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(ResponseCacheFilter.CACHE_INVALIDATE_HEADER);
+
+        assertEquals("7 v2", read(cacheableClient, "7", "/api/boards/1/task-states"));
+        assertEquals("8 v1", read(cacheableClient, "8", "/api/boards/1/task-states"));
+        assertEquals(4, upstreamRequests.size());
+    }
+
+    @Test
+    void shouldNotKeepReadThatOverlappedChange() {
+        // the mock exchange has nothing to wait for, so the change is done once subscribed
+        duringRead = () -> responseCacheFilter.forRoute(false)
+                .filter(MockServerWebExchange.from(MockServerHttpRequest.post("/api/tasks/1").header("id", "7")),
+                        this::upstream)
+                .subscribe();
+        assertEquals("7 v1", read(cacheableClient, "7", "/api/boards/1/task-states"));
+        duringRead = null;
+
+        assertEquals("7 v2", read(cacheableClient, "7", "/api/boards/1/task-states"));
+        assertEquals(3, upstreamRequests.size());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhenClientHasCachedVersion() {
+        read(cacheableClient, "7", "/api/boards/1/task-states");
+
+        cacheableClient.get().uri("/api/boards/1/task-states").header("id", "7")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"");
+        assertEquals(1, upstreamRequests.size());
+    }
+
+    @Test
+    void shouldRevalidateExpiredResponse() {
+        cacheControl = "no-cache";
+        read(cacheableClient, "7", "/api/boards/1/task-states");
+
+        assertEquals("7 v1", read(cacheableClient, "7", "/api/boards/1/task-states"));
+        assertEquals(List.of("GET /api/boards/1/task-states", "GET /api/boards/1/task-states if-none-match \"1\""),
+                upstreamRequests);
+    }
+
+    private String read(WebTestClient client, String personId, String uri) {
+        return client.get().uri(uri).header("id", personId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private WebTestClient client(GatewayFilter filter) {
+        return WebTestClient.bindToWebHandler(exchange -> filter.filter(exchange, this::upstream)).build();
+    }
+
+    /**
+     * Answers reads with the current version as ETag and changes with {@code X-Cache-Invalidate},
+     * like the task tracker does.
+     */
+    private Mono<Void> upstream(ServerWebExchange exchange) {
+        String ifNoneMatch = exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        upstreamRequests.add(exchange.getRequest().getMethod() + " " + exchange.getRequest().getURI().getRawPath()
+                + (exchange.getRequest().getURI().getRawQuery() != null ? "?" + exchange.getRequest().getURI().getRawQuery() : "")
+                + (ifNoneMatch != null ? " if-none-match " + ifNoneMatch : ""));
+        ServerHttpResponse response = exchange.getResponse();
+        if (!"GET".equals(exchange.getRequest().getMethod().name())) {
+            version++;
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().set(ResponseCacheFilter.CACHE_INVALIDATE_HEADER, "person");
+            return response.setComplete();
+        }
+
+        String body = exchange.getRequest().getHeaders().getFirst("id") + " v" + version;
+        String eTag = "\"" + version + "\"";
+        if (duringRead != null) {
+            duringRead.run();
+        }
+        response.getHeaders().setETag(eTag);
+        response.getHeaders().setCacheControl(cacheControl);
+        if (eTag.equals(ifNoneMatch)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+    }
+}
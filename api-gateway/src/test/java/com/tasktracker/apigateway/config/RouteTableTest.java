@@ -0,0 +1,79 @@
+package com.tasktracker.apigateway.config;
+
+import com.tasktracker.apigateway.config.RouteTable.Route;
+import com.tasktracker.apigateway.config.RouteTable.RoutePolicy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteTableTest {
+
+    private final RouteTable routeTable = RouteTable.builder()
+            .route("boards", "/api/boards", "lb://task-tracker", policy())
+            .route("board-import", "/api/boards/*/import", "lb://task-tracker", policy())
+            .route("board-template", "/api/boards/templates/import", "lb://task-tracker", policy())
+            .route("auth", "/api/auth", "lb://authorization-service", policy())
+            .route("login", "/api/auth/login", "lb://authorization-service", RoutePolicy.builder()
+                    .authRequired(false)
+                    .build())
+            .build();
+
+    @Test
+    void shouldMatchRouteAndEverythingBelowIt() {
+        assertEquals("boards", match("/api/boards"));
+        assertEquals("boards", match("/api/boards/1/task-states"));
+        assertNull(match("/api"));
+        assertNull(match("/api/boardsx"));
+    }
+
+    @Test
+    void shouldPreferMostSpecificRoute() {
+        assertEquals("board-import", match("/api/boards/1/import"));
+        assertEquals("board-import", match("/api/boards/1/import/status"));
+        assertEquals("boards", match("/api/boards/1/export"));
+    }
+
+    @Test
+    void shouldPreferLiteralOverWildcard() {
+        assertEquals("board-template", match("/api/boards/templates/import"));
+        assertEquals("boards", match("/api/boards/templates"));
+    }
+
+    @Test
+    void shouldMatchWholeSegmentsOnly() {
+        assertEquals("login", match("/api/auth/login"));
+        assertEquals("auth", match("/api/auth/loginx"));
+        assertEquals("auth", match("/api/auth/logi"));
+    }
+
+    @Test
+    void shouldNotMatchDotSegments() {
+        assertNull(match("/api/auth/login/../users"));
+        assertNull(match("/api/auth/login/./users"));
+        assertNull(match("/api/auth/login/%2e%2e/users"));
+        assertNull(match("/api/auth/login/%2E./users"));
+        assertNull(match("/api/auth/login/%2e"));
+        assertEquals("login", match("/api/auth/login/...hidden"));
+    }
+
+    @Test
+    void shouldRejectRoutesSharingIdOrPath() {
+        assertThrows(IllegalStateException.class, () -> RouteTable.builder()
+                .route("boards", "/api/boards", "lb://task-tracker", policy())
+                .route("boards", "/api/task-states", "lb://task-tracker", policy())
+                .build());
+        assertThrows(IllegalStateException.class, () -> RouteTable.builder()
+                .route("boards", "/api/boards", "lb://task-tracker", policy())
+                .route("all-boards", "/api/boards/", "lb://task-tracker", policy())
+                .build());
+    }
+
+    private String match(String path) {
+        Route route = routeTable.match(path);
+        return route == null ? null : route.getId();
+    }
+
+    private static RoutePolicy policy() {
+        return RoutePolicy.builder().build();
+    }
+}
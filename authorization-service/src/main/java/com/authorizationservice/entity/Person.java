@@ -6,6 +6,8 @@ import lombok.*;
 import java.util.Objects;
 
 @Entity
+@Table(name = "person",
+        uniqueConstraints = @UniqueConstraint(name = "uk_person_username", columnNames = "username"))
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
@@ -0,0 +1,65 @@
+package com.authorizationservice.migrations;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the unique username index on PostgreSQL, where the schema isn't managed by Hibernate.
+ * <p>
+ * The index is built concurrently, so sign-ups and logins go on while it is being built. When existing
+ * usernames are not unique the index can't be built: the half-built index is dropped and the error is logged,
+ * the duplicates have to be resolved by hand. An index left invalid by a build that was interrupted, e.g. by
+ * a restart, is dropped and built again. Does nothing once a valid index exists.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UsernameIndexMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // the schema is created or updated while the entity manager factory is built
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${authorization-service.migrations.username-index.enabled:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return;
+        }
+
+        // "if not exists" would keep an invalid index, which enforces nothing
+        Boolean valid = jdbcTemplate.query(
+                "select indisvalid from pg_index where indexrelid = to_regclass('uk_person_username')",
+                rs -> rs.next() ? rs.getBoolean("indisvalid") : null);
+        if (Boolean.TRUE.equals(valid)) {
+            return;
+        }
+        if (Boolean.FALSE.equals(valid)) {
+            log.warn("Unique username index is invalid, building it again");
+            jdbcTemplate.execute("drop index concurrently if exists uk_person_username");
+        }
+
+        try {
+            jdbcTemplate.execute("create unique index concurrently if not exists uk_person_username on person (username)");
+            log.info("Unique username index is in place");
+        } catch (DataAccessException exception) {
+            jdbcTemplate.execute("drop index concurrently if exists uk_person_username");
+            log.error("Unique username index can't be built, usernames are not unique", exception);
+        }
+    }
+}
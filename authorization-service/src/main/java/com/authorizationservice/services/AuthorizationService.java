@@ -4,23 +4,35 @@ import com.authorizationservice.entity.Person;
 import com.authorizationservice.exceptions.BadRequestException;
 import com.authorizationservice.repositories.PersonRepo;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 @Service
 @AllArgsConstructor
 public class AuthorizationService {
 
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\A\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}");
+
     private final PersonRepo personRepo;
+    private final PasswordHashingService passwordHashingService;
+    private final CustomUserDetailsService userDetailsService;
 
     public Person register(Person person) {
-        Optional<Person> foundPerson = personRepo.findByName(person.getName());
-        foundPerson.ifPresent(p -> {
+        person.setPassword(passwordHashingService.encode(person.getPassword()));
+        final Person savedPerson;
+        try {
+            // a single insert, the unique username constraint rejects taken names, concurrent sign-ups included
+            savedPerson = personRepo.saveAndFlush(person);
+        } catch (DataIntegrityViolationException exception) {
             throw new BadRequestException(String.format("User %s is already created", person.getName()));
-        });
-
-        return personRepo.saveAndFlush(person);
+        }
+        userDetailsService.evict(savedPerson);
+        return savedPerson;
     }
 
     public Person login(Person person){
@@ -28,9 +40,31 @@ public class AuthorizationService {
         if (foundPerson.isEmpty()){
             throw new BadRequestException(String.format("User %s was not found", person.getName()));
         }
-        if  (!person.getPassword().equals(foundPerson.get().getPassword())){
+        if (!BCRYPT_HASH.matcher(foundPerson.get().getPassword()).matches()){
+            return loginWithPlainPassword(person, foundPerson.get());
+        }
+        if (!passwordHashingService.matches(person.getPassword(), foundPerson.get().getPassword())){
             throw new BadRequestException("Incorrect password");
         }
+        if (passwordHashingService.needsUpgrade(foundPerson.get().getPassword())){
+            foundPerson.get().setPassword(passwordHashingService.encode(person.getPassword()));
+            personRepo.save(foundPerson.get());
+            userDetailsService.evict(foundPerson.get());
+        }
         return foundPerson.get();
     }
+
+    /**
+     * Users registered before passwords were hashed, their password gets hashed on the first successful login.
+     */
+    private Person loginWithPlainPassword(Person person, Person foundPerson){
+        if (!MessageDigest.isEqual(person.getPassword().getBytes(StandardCharsets.UTF_8),
+                foundPerson.getPassword().getBytes(StandardCharsets.UTF_8))){
+            throw new BadRequestException("Incorrect password");
+        }
+        foundPerson.setPassword(passwordHashingService.encode(person.getPassword()));
+        personRepo.save(foundPerson);
+        userDetailsService.evict(foundPerson);
+        return foundPerson;
+    }
 }
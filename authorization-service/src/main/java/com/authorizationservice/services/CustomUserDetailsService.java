@@ -1,31 +1,71 @@
 package com.authorizationservice.services;
 
+import com.authorizationservice.entity.Person;
 import com.authorizationservice.repositories.PersonRepo;
 import com.authorizationservice.security.CustomUserDetails;
-import lombok.AllArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-@AllArgsConstructor
+import java.time.Duration;
+
+/**
+ * Loads users for the security filters, keeping recently loaded ones by id and by username.
+ * <p>
+ * Entries live for {@code authorization-service.user-details-cache.expire-after-write} at most, and every change
+ * of a person's credentials has to {@link #evict} them. Hits and misses are reported as the {@code cache.*} metrics
+ * tagged {@code cache=user-details-by-id} and {@code cache=user-details-by-username}.
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final PersonRepo personRepo;
+    private final Cache<Long, UserDetails> usersById;
+    private final Cache<String, UserDetails> usersByUsername;
 
+    public CustomUserDetailsService(PersonRepo personRepo,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${authorization-service.user-details-cache.max-size:10000}") long maxSize,
+                                    @Value("${authorization-service.user-details-cache.expire-after-write:5m}") Duration expireAfterWrite) {
+        this.personRepo = personRepo;
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.usersByUsername = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "user-details-by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, usersByUsername, "user-details-by-username");
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return new CustomUserDetails(personRepo.findByName(username).orElseThrow(() -> {
+        return usersByUsername.get(username, name -> new CustomUserDetails(personRepo.findByName(name).orElseThrow(() -> {
             throw new UsernameNotFoundException("User was not found");
-        }));
+        })));
     }
 
     public UserDetails loadUserByUserId(Long id) throws UsernameNotFoundException {
-        return new CustomUserDetails(personRepo.findById(id).orElseThrow(() -> {
+        return usersById.get(id, personId -> new CustomUserDetails(personRepo.findById(personId).orElseThrow(() -> {
             throw new UsernameNotFoundException("User was not found");
-        }));
+        })));
     }
 
+    /**
+     * Drops the cached details of the person, to be called whenever their name or password changes.
+     */
+    public void evict(Person person) {
+        usersById.invalidate(person.getId());
+        usersByUsername.invalidate(person.getName());
+    }
 }
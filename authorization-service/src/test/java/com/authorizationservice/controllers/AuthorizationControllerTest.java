@@ -67,6 +67,24 @@ class AuthorizationControllerTest {
         assertEquals(202 , mvcResult.getResponse().getStatus());
     }
 
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/person-data.sql"})
+    void shouldRejectTakenUsername() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        PersonDto personDto = PersonDto.builder()
+                .name("test user")
+                .password("another password")
+                .build();
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/api/auth/registration")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(personDto));
+        MvcResult mvcResult = mvc.perform(request).andReturn();
+
+        assertEquals(400 , mvcResult.getResponse().getStatus());
+    }
+
     @Test
     @Sql({"classpath:empty/reset.sql", "classpath:init/person-data.sql"})
     void shouldPerformLogin() throws Exception {
@@ -9,6 +9,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ContextConfiguration;
 
 import java.util.Optional;
@@ -22,9 +23,17 @@ import static org.mockito.Mockito.*;
 @ContextConfiguration(classes = AuthorizationServiceTest.class)
 class AuthorizationServiceTest {
 
+    private static final String HASH = "$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy";
+
     @Mock
     private PersonRepo personRepo;
 
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
     @InjectMocks
     private AuthorizationService authorizationService;
 
@@ -36,19 +45,20 @@ class AuthorizationServiceTest {
     @Test
     void shouldRegisterUser() {
         Person person = mock(Person.class);
-        when(personRepo.findByName(anyString())).thenReturn(Optional.empty());
         when(person.getName()).thenReturn("bla bla name");
 
         authorizationService.register(person);
 
+        verify(passwordHashingService).encode(any());
         verify(personRepo).saveAndFlush(any(Person.class));
+        verify(personRepo, never()).findByName(anyString());
     }
 
     @Test
     void shouldThrowBadRequestExcWhenSameUserExists_RegisterUser() {
         Person person = mock(Person.class);
-        Person foundPerson = mock(Person.class);
-        when(personRepo.findByName(anyString())).thenReturn(Optional.ofNullable(foundPerson));
+        when(personRepo.saveAndFlush(any(Person.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_person_username"));
         when(person.getName())
                 .thenReturn("bla bla name")
                 .thenReturn("bla bla name");
@@ -72,9 +82,35 @@ class AuthorizationServiceTest {
                 .build());
         when(personRepo.findByName(anyString())).thenReturn(Optional.ofNullable(foundPerson));
 
+        when(passwordHashingService.encode("test")).thenReturn(HASH);
+
         Person resultPerson = authorizationService.login(person);
 
         assertEquals(foundPerson, resultPerson);
+        assertEquals(HASH, foundPerson.getPassword());
+        verify(personRepo).save(foundPerson);
+        verify(userDetailsService).evict(foundPerson);
+    }
+
+    @Test
+    void shouldCheckHashedPassword_LoginUser() {
+        Person foundPerson = Person.builder()
+                .id(1l)
+                .name("test")
+                .password(HASH)
+                .build();
+        Person person = Person.builder()
+                .name("test")
+                .password("test")
+                .build();
+        when(personRepo.findByName(anyString())).thenReturn(Optional.of(foundPerson));
+        when(passwordHashingService.matches("test", HASH)).thenReturn(true);
+
+        assertEquals(foundPerson, authorizationService.login(person));
+        verify(personRepo, never()).save(any(Person.class));
+
+        when(passwordHashingService.matches("test", HASH)).thenReturn(false);
+        assertThrows(BadRequestException.class, () -> authorizationService.login(person));
     }
 
     @Test
@@ -0,0 +1,70 @@
+package com.authorizationservice.services;
+
+import com.authorizationservice.entity.Person;
+import com.authorizationservice.repositories.PersonRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CustomUserDetailsServiceTest {
+
+    private final Person person = Person.builder()
+            .id(1l)
+            .name("test")
+            .password("password")
+            .build();
+
+    private PersonRepo personRepo;
+    private SimpleMeterRegistry meterRegistry;
+    private CustomUserDetailsService userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        personRepo = mock(PersonRepo.class);
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsService = new CustomUserDetailsService(personRepo, meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void shouldLoadUserOnce() {
+        when(personRepo.findById(1l)).thenReturn(Optional.of(person));
+        when(personRepo.findByName("test")).thenReturn(Optional.of(person));
+
+        assertEquals("test", userDetailsService.loadUserByUserId(1l).getUsername());
+        assertEquals("test", userDetailsService.loadUserByUserId(1l).getUsername());
+        assertEquals("password", userDetailsService.loadUserByUsername("test").getPassword());
+        assertEquals("password", userDetailsService.loadUserByUsername("test").getPassword());
+
+        verify(personRepo, times(1)).findById(1l);
+        verify(personRepo, times(1)).findByName("test");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "user-details-by-id").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void shouldReloadUserAfterEviction() {
+        when(personRepo.findById(1l)).thenReturn(Optional.of(person));
+        userDetailsService.loadUserByUserId(1l);
+
+        userDetailsService.evict(person);
+        userDetailsService.loadUserByUserId(1l);
+
+        verify(personRepo, times(2)).findById(1l);
+    }
+
+    @Test
+    void shouldNotRememberMissingUser() {
+        when(personRepo.findByName("test")).thenReturn(Optional.empty());
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("test"));
+
+        when(personRepo.findByName("test")).thenReturn(Optional.of(person));
+        assertEquals("test", userDetailsService.loadUserByUsername("test").getUsername());
+    }
+}
@@ -0,0 +1,84 @@
+package com.authorizationservice.services;
+
+import com.authorizationservice.entity.Person;
+import com.authorizationservice.exceptions.BadRequestException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Registers users concurrently on top of a million existing ones, every name is registered twice at once.
+ * Run with {@code ./gradlew benchmark}, it is excluded from the regular test task.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.show_sql=false",
+        // the load test is about the database, not about hashing
+        "authorization-service.password-hashing.strength=4"})
+class RegistrationLoadTest {
+
+    private static final int EXISTING_USERS = 1_000_000;
+    private static final int NEW_USERS = 5_000;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private AuthorizationService authorizationService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void registerUsers() throws Exception {
+        jdbcTemplate.execute("truncate table person restart identity");
+        long seedStart = System.nanoTime();
+        for (int from = 0; from < EXISTING_USERS; from += 10_000) {
+            List<Object[]> rows = IntStream.range(from, from + 10_000)
+                    .mapToObj(i -> new Object[]{"existing " + i, "password"})
+                    .toList();
+            jdbcTemplate.batchUpdate("insert into person (username, password) values (?, ?)", rows);
+        }
+        System.out.printf("Seeded %d users in %d ms%n", EXISTING_USERS, (System.nanoTime() - seedStart) / 1_000_000);
+
+        AtomicInteger registered = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Callable<Void>> registrations = new ArrayList<>();
+        for (int i = 0; i < NEW_USERS; i++) {
+            String name = "new " + i;
+            for (int attempt = 0; attempt < 2; attempt++) {
+                registrations.add(() -> {
+                    try {
+                        authorizationService.register(Person.builder().name(name).password("password").build());
+                        registered.incrementAndGet();
+                    } catch (BadRequestException exception) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+        }
+
+        long start = System.nanoTime();
+        for (Future<Void> future : executor.invokeAll(registrations)) {
+            future.get();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        executor.shutdown();
+
+        System.out.printf("%d registration attempts on %d threads in %d ms: %.0f attempts/s, %d registered, %d rejected%n",
+                registrations.size(), THREADS, elapsedMillis, registrations.size() * 1000.0 / elapsedMillis,
+                registered.get(), rejected.get());
+        assertEquals(NEW_USERS, registered.get());
+        assertEquals(NEW_USERS, rejected.get());
+        assertEquals(EXISTING_USERS + NEW_USERS, jdbcTemplate.queryForObject("select count(*) from person", Integer.class));
+    }
+}
@@ -0,0 +1,41 @@
+package com.tasktracker.benchmarks;
+
+import com.tasktracker.apigateway.config.JWTUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * api-gateway's {@link JWTUtil}, jjwt, with and without the verified tokens cache.
+ * The gateway never issues tokens, they come from authorization-service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ApiGatewayJwtBenchmark {
+
+    private JWTUtil jwtUtil;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JWTUtil();
+        JwtBenchmarkSupport.inject(jwtUtil, "secret", JwtBenchmarkSupport.SECRET);
+        JwtBenchmarkSupport.inject(jwtUtil, "maxSize", 10_000L);
+        jwtUtil.init();
+
+        com.authorizationservice.util.JWTUtil issuer = new com.authorizationservice.util.JWTUtil();
+        JwtBenchmarkSupport.inject(issuer, "secret", JwtBenchmarkSupport.SECRET);
+        authorizationHeader = "Bearer " + issuer.generateToken(1l);
+    }
+
+    @Benchmark
+    public Object verifyAndExtractId() {
+        return jwtUtil.parseClaims(authorizationHeader).get("id");
+    }
+
+    @Benchmark
+    public Object verifiedTokenLookup() {
+        return jwtUtil.getAllClaimsFromToken(authorizationHeader).get("id");
+    }
+}
@@ -0,0 +1,35 @@
+package com.tasktracker.benchmarks;
+
+import com.authorizationservice.util.JWTUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * authorization-service's {@link JWTUtil}, auth0 java-jwt, issuing tokens at login and verifying them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AuthorizationServiceJwtBenchmark {
+
+    private JWTUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JWTUtil();
+        JwtBenchmarkSupport.inject(jwtUtil, "secret", JwtBenchmarkSupport.SECRET);
+        token = jwtUtil.generateToken(1l);
+    }
+
+    @Benchmark
+    public String issue() {
+        return jwtUtil.generateToken(1l);
+    }
+
+    @Benchmark
+    public Long verifyAndExtractId() {
+        return jwtUtil.validateTokenAndRetrieveClaim(token);
+    }
+}
@@ -0,0 +1,27 @@
+package com.tasktracker.benchmarks;
+
+import java.lang.reflect.Field;
+
+/**
+ * Builds the services' components the way Spring would, without starting the services.
+ */
+final class JwtBenchmarkSupport {
+
+    static final String SECRET = "benchmarkSecretThatIsLongEnoughForHmacSha256";
+
+    private JwtBenchmarkSupport() {
+    }
+
+    /**
+     * Sets a field Spring would inject with {@code @Value}.
+     */
+    static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.tasktracker.benchmarks;
+
+import com.tasktracker.apigateway.config.RouteTable;
+import com.tasktracker.apigateway.config.RouteTable.RoutePolicy;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * api-gateway's {@link RouteTable} against matching the routes one after another with path patterns,
+ * the way the gateway's {@code Path} predicates pick a route.
+ * Every route is {@code /api/service-<i>/resource-<j>}, the requested paths go a few segments below them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RouteTableBenchmark {
+
+    private static final int PATHS = 1024;
+
+    @Param({"100", "500"})
+    private int routes;
+
+    private RouteTable routeTable;
+    private List<PathPattern> pathPatterns;
+    private String[] paths;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        RouteTable.Builder builder = RouteTable.builder();
+        pathPatterns = new ArrayList<>();
+        PathPatternParser parser = new PathPatternParser();
+        for (int i = 0; i < routes; i++) {
+            String path = String.format("/api/service-%d/resource-%d", i / 10, i % 10);
+            builder.route("route-" + i, path, "lb://service-" + i / 10, RoutePolicy.builder().build());
+            pathPatterns.add(parser.parse(path + "/**"));
+        }
+        routeTable = builder.build();
+
+        Random random = new Random(42);
+        paths = new String[PATHS];
+        for (int i = 0; i < PATHS; i++) {
+            int route = random.nextInt(routes);
+            paths[i] = String.format("/api/service-%d/resource-%d/%d/items", route / 10, route % 10, random.nextInt(1000));
+        }
+    }
+
+    @Benchmark
+    public Object routeTable() {
+        return routeTable.match(nextPath());
+    }
+
+    @Benchmark
+    public Object pathPatterns() {
+        PathContainer path = PathContainer.parsePath(nextPath());
+        for (PathPattern pathPattern : pathPatterns) {
+            if (pathPattern.matches(path)) {
+                return pathPattern;
+            }
+        }
+        return null;
+    }
+
+    private String nextPath() {
+        return paths[next++ & (PATHS - 1)];
+    }
+}
@@ -0,0 +1,43 @@
+package com.tasktracker.benchmarks;
+
+import com.tasktracker.api.util.IdentityAssertionUtil;
+import com.tasktracker.api.util.JWTUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * task-tracker's {@link JWTUtil}, auth0 java-jwt, with and without the verified tokens cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskTrackerJwtBenchmark {
+
+    private JWTUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JWTUtil(JwtBenchmarkSupport.SECRET, 10_000, new SimpleMeterRegistry(),
+                new IdentityAssertionUtil("", Duration.ofSeconds(30)));
+        token = jwtUtil.generateToken(1l);
+    }
+
+    @Benchmark
+    public String issue() {
+        return jwtUtil.generateToken(1l);
+    }
+
+    @Benchmark
+    public Long verifyAndExtractId() {
+        return jwtUtil.verifyTokenAndRetrieveClaim(token);
+    }
+
+    @Benchmark
+    public Long verifiedTokenLookup() {
+        return jwtUtil.validateTokenAndRetrieveClaim(token);
+    }
+}
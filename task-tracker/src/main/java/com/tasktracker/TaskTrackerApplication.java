@@ -3,8 +3,11 @@ package com.tasktracker;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableAsync;
+
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableAsync
 public class TaskTrackerApplication {
 
     public static void main(String[] args) {
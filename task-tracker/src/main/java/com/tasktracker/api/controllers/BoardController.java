@@ -2,14 +2,23 @@ package com.tasktracker.api.controllers;
 
 import com.tasktracker.api.dto.AnswerDto;
 import com.tasktracker.api.dto.BoardDto;
+import com.tasktracker.api.dto.BoardImportDto;
+import com.tasktracker.api.dto.PageDto;
 import com.tasktracker.api.factories.BoardDtoFactory;
+import com.tasktracker.api.services.BoardExportService;
+import com.tasktracker.api.services.BoardImportService;
 import com.tasktracker.api.services.BoardService;
+import com.tasktracker.api.util.CursorUtil;
 import com.tasktracker.api.util.JWTUtil;
 import com.tasktracker.store.entities.BoardEntity;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,16 +28,30 @@ public class BoardController {
 
     private final JWTUtil jwtUtil;
     private final BoardService boardService;
+    private final BoardImportService boardImportService;
+    private final BoardExportService boardExportService;
     public static final String DELETE_BOARD="/api/boards/{board_id}";
+    public static final String IMPORT_BOARD="/api/boards/{board_id}/import";
+    public static final String EXPORT_BOARD="/api/boards/{board_id}/export";
     public static final String FETCH_BOARD="/api/boards";
     public static final String CREATE_OR_UPDATE_BOARD="/api/boards";
 
     @GetMapping(FETCH_BOARD)
-    public List<BoardDto> fetchBoards(
+    public ResponseEntity<List<BoardDto>> fetchBoards(
             @RequestParam(value = "prefix_name", required = false)Optional<String> prefixName,
+            @RequestParam(value = "cursor", required = false) Optional<String> cursor,
+            @RequestParam(value = "limit", required = false) Optional<Integer> limit,
             HttpServletRequest request){
         Long personId = jwtUtil.getPersonId(request);
-        return boardService.fetchBoard(prefixName, personId);
+        if (limit.isEmpty()) {
+            return ResponseEntity.ok(boardService.fetchBoard(prefixName, personId));
+        }
+        PageDto<BoardDto> page = boardService.fetchBoardPage(prefixName, cursor, limit.get(), personId);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(CursorUtil.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     @PutMapping(CREATE_OR_UPDATE_BOARD)
@@ -48,4 +71,20 @@ public class BoardController {
         Long personId = jwtUtil.getPersonId(request);
         return boardService.deleteBoard(boardId, personId);
     }
+
+    @PostMapping(IMPORT_BOARD)
+    public BoardImportDto importBoard(@PathVariable("board_id") Long boardId,
+                                      HttpServletRequest request) throws IOException {
+        Long personId = jwtUtil.getPersonId(request);
+        return boardImportService.importBoard(boardId, request.getInputStream(), personId);
+    }
+
+    @GetMapping(EXPORT_BOARD)
+    public ResponseEntity<StreamingResponseBody> exportBoard(@PathVariable("board_id") Long boardId,
+                                                             HttpServletRequest request) {
+        Long personId = jwtUtil.getPersonId(request);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(boardExportService.exportBoard(boardId, personId));
+    }
 }
@@ -1,13 +1,20 @@
 package com.tasktracker.api.controllers;
 
 import com.tasktracker.api.dto.AnswerDto;
+import com.tasktracker.api.dto.PageDto;
 import com.tasktracker.api.dto.TaskDto;
+import com.tasktracker.api.dto.TaskSearchResultDto;
 import com.tasktracker.api.factories.TaskDtoFactory;
+import com.tasktracker.api.services.TaskSearchService;
 import com.tasktracker.api.services.TaskService;
+import com.tasktracker.api.util.CursorUtil;
 import com.tasktracker.api.util.JWTUtil;
+import com.tasktracker.api.util.RetryUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,12 +26,15 @@ public class TaskController {
     private final JWTUtil jwtUtil;
     private final TaskDtoFactory taskDtoFactory;
     private final TaskService taskService;
+    private final RetryUtil retryUtil;
+    private final TaskSearchService taskSearchService;
 
     private static final String CREATE_TASK="/api/task-states/{task_state_id}/tasks";
     private static final String GET_TASKS="/api/task-states/{task_state_id}/tasks";
     private static final String DELETE_TASK="/api/tasks/{task_id}";
     private static final String UPDATE_TASK="/api/tasks";
     private static final String CHANGE_TASK_POSITION="/api/tasks/{task_id}/position/change";
+    private static final String SEARCH_TASKS="/api/tasks/search";
 
     @PostMapping(CREATE_TASK)
     public TaskDto createTask(@PathVariable("task_state_id") Long taskStateId,
@@ -35,10 +45,28 @@ public class TaskController {
     }
 
     @GetMapping(GET_TASKS)
-    public List<TaskDto> getTasks(@PathVariable("task_state_id") Long taskStateId,
-                                  HttpServletRequest request){
+    public ResponseEntity<List<TaskDto>> getTasks(@PathVariable("task_state_id") Long taskStateId,
+                                                  @RequestParam(value = "cursor", required = false) Optional<String> cursor,
+                                                  @RequestParam(value = "limit", required = false) Optional<Integer> limit,
+                                                  HttpServletRequest request,
+                                                  WebRequest webRequest){
         Long personId = jwtUtil.getPersonId(request);
-        return  taskDtoFactory.makeTaskDtoList(taskService.getTasks(taskStateId, personId));
+        // read before the tasks, so the tag is never newer than the tasks it is sent with
+        String eTag = String.valueOf(taskService.getBoardContentVersion(taskStateId, personId));
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        if (limit.isEmpty()) {
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .body(taskDtoFactory.makeTaskDtoList(taskService.getTasks(taskStateId, personId)));
+        }
+        PageDto<TaskDto> page = taskService.getTaskPage(taskStateId, cursor, limit.get(), personId);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag);
+        if (page.getNextCursor() != null) {
+            response.header(CursorUtil.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
 
     @DeleteMapping(DELETE_TASK)
@@ -59,9 +87,22 @@ public class TaskController {
                                       @RequestParam(value = "previous_task_id",required = false) Optional<Long> previousTaskId,
                                       @RequestParam(value = "next_task_id" , required = false)Optional<Long> nextTaskId,
                                       HttpServletRequest request){
-        //TODO
         Long personId = jwtUtil.getPersonId(request);
-        return taskService.changeTaskPosition(taskId, previousTaskId, nextTaskId,personId);
+        return retryUtil.retryOnConflict(
+                () -> taskService.changeTaskPosition(taskId, previousTaskId, nextTaskId, personId));
     }
 
+    @GetMapping(SEARCH_TASKS)
+    public ResponseEntity<List<TaskSearchResultDto>> searchTasks(@RequestParam("query") String query,
+                                                                 @RequestParam(value = "cursor", required = false) Optional<String> cursor,
+                                                                 @RequestParam(value = "limit", defaultValue = "20") int limit,
+                                                                 HttpServletRequest request){
+        Long personId = jwtUtil.getPersonId(request);
+        PageDto<TaskSearchResultDto> page = taskSearchService.search(query, cursor, limit, personId);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(CursorUtil.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
 }
@@ -4,16 +4,20 @@ package com.tasktracker.api.controllers;
 import com.tasktracker.api.dto.AnswerDto;
 import com.tasktracker.api.dto.TaskStateDto;
 import com.tasktracker.api.factories.TaskStateDtoFactory;
-import com.tasktracker.api.services.TaskService;
+import com.tasktracker.api.services.BoardService;
+import com.tasktracker.api.services.BoardSnapshotCache;
 import com.tasktracker.api.services.TaskStateService;
 import com.tasktracker.api.util.JWTUtil;
-import com.tasktracker.store.entities.TaskEntity;
+import com.tasktracker.api.util.RetryUtil;
 import com.tasktracker.store.entities.TaskStateEntity;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,7 +28,9 @@ public class TaskStateController {
     private final JWTUtil jwtUtil;
     private  final TaskStateDtoFactory taskStateDtoFactory;
     private final TaskStateService taskStateService;
-    private final TaskService taskService;
+    private final BoardSnapshotCache boardSnapshotCache;
+    private final BoardService boardService;
+    private final RetryUtil retryUtil;
 
     public static final String GET_TASK_STATES="/api/boards/{board_id}/task-states";
 
@@ -38,20 +44,21 @@ public class TaskStateController {
 
 
     @GetMapping(GET_TASK_STATES)
-    public List<TaskStateDto> getTaskStates(@PathVariable("board_id") Long boardId,
-                                            HttpServletRequest request){
+    public ResponseEntity<byte[]> getTaskStates(@PathVariable("board_id") Long boardId,
+                                                HttpServletRequest request,
+                                                WebRequest webRequest){
         Long personId = jwtUtil.getPersonId(request);
-        List<TaskStateEntity> list = taskStateService.getTaskStates(boardId, personId);
-        if (list.isEmpty()) return Collections.emptyList();
-
-        list.forEach(taskState ->{
-            List<TaskEntity> tasks = taskState.getTasks();
-            if (!tasks.isEmpty()){
-                taskState.setTasks(taskService.toSort(taskState.getTasks()));
-            }
-        });
-        return taskStateDtoFactory.makeTaskStateDtoList(taskStateService.toSort(list));
-
+        // checks the ownership too, a conditional request is answered from the content version alone
+        Long contentVersion = boardService.getContentVersion(boardId, personId);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null &&
+                webRequest.checkNotModified(String.valueOf(contentVersion))) {
+            return null;
+        }
+        BoardSnapshotCache.Snapshot snapshot = boardSnapshotCache.getBoardSnapshot(boardId, personId, contentVersion);
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(snapshot.contentVersion()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.json());
     }
     @PostMapping(CREATE_TASK_STATE)
     public TaskStateDto createTaskState(@PathVariable("board_id") Long boardId,
@@ -81,17 +88,10 @@ public class TaskStateController {
     public List<TaskStateDto> changeTaskStatePosition(@PathVariable("tusk_state_id") Long taskStateId,
                                                       @RequestParam(value = "previous_task_state_id",required = false) Optional<Long> previousTaskStateId,
                                                       @RequestParam(value = "next_task_state_id" , required = false)Optional<Long> nextTaskStateId,
-                                                      @RequestParam(value = "to_sort", required = false) boolean toSort,
                                                       HttpServletRequest request){
         Long personId = jwtUtil.getPersonId(request);
-        List<TaskStateEntity> taskStateEntityList = taskStateService.changeTaskStatePosition(
-                taskStateId, previousTaskStateId, nextTaskStateId, personId);
-
-        if (toSort){
-            return taskStateDtoFactory.makeTaskStateDtoList(
-                    taskStateService.toSort(taskStateEntityList)
-            );
-        }
+        List<TaskStateEntity> taskStateEntityList = retryUtil.retryOnConflict(() -> taskStateService.changeTaskStatePosition(
+                taskStateId, previousTaskStateId, nextTaskStateId, personId));
         return taskStateDtoFactory.makeTaskStateDtoList(taskStateEntityList);
     }
 }
@@ -0,0 +1,17 @@
+package com.tasktracker.api.dto;
+
+import lombok.*;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class BoardImportDto {
+
+    private Long boardId;
+
+    private long taskStateCount;
+
+    private long taskCount;
+}
@@ -0,0 +1,17 @@
+package com.tasktracker.api.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class BoardSnapshotDto {
+
+    private Long contentVersion;
+
+    private List<TaskStateDto> taskStates;
+}
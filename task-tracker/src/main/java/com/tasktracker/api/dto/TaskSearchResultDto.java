@@ -0,0 +1,21 @@
+package com.tasktracker.api.dto;
+
+import lombok.*;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Getter
+@Setter
+public class TaskSearchResultDto {
+
+    private Long id;
+
+    private String name;
+
+    private String description;
+
+    private Long taskStateId;
+
+    private Long boardId;
+}
@@ -0,0 +1,4 @@
+package com.tasktracker.api.events;
+
+public record TaskStateRebalanceEvent(Long boardId) {
+}
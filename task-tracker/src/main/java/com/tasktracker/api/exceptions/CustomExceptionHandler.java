@@ -1,5 +1,7 @@
 package com.tasktracker.api.exceptions;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -9,6 +11,21 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 @ControllerAdvice
 public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
 
+    /**
+     * A write that lost a race outside {@link com.tasktracker.api.util.RetryUtil}, the client may send it again.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorDto> optimisticLockingFailure(OptimisticLockingFailureException e){
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ErrorDto
+                        .builder()
+                        .error(HttpStatus.CONFLICT.getReasonPhrase())
+                        .errorDescription("The resource was changed by another request, try again")
+                        .build()
+                );
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> exception(Exception e, WebRequest request)throws Exception{
         return handleException(e, request);
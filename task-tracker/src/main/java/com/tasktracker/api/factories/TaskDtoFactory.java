@@ -4,25 +4,36 @@ import com.tasktracker.api.dto.TaskDto;
 import com.tasktracker.store.entities.TaskEntity;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Component
 public class TaskDtoFactory {
 
     public TaskDto makeTaskDto(TaskEntity task){
+        return makeTaskDto(task, null, null);
+    }
+
+    public TaskDto makeTaskDto(TaskEntity task, Long previousTaskId, Long nextTaskId){
         return TaskDto.builder()
                 .id(task.getId())
-                .previousTaskId(task.getPreviousTask().map(TaskEntity::getId).orElse(null))
-                .nextTaskId(task.getNextTask().map(TaskEntity::getId).orElse(null))
+                .previousTaskId(previousTaskId)
+                .nextTaskId(nextTaskId)
                 .name(task.getName())
                 .description(task.getDescription())
                 .build();
     }
 
+    /**
+     * Expects tasks ordered by rank, neighbour ids are taken from the adjacent elements.
+     */
     public List<TaskDto> makeTaskDtoList(List<TaskEntity> list){
-        return list.stream()
-                .map(this::makeTaskDto)
-                .collect(Collectors.toList());
+        List<TaskDto> result = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            result.add(makeTaskDto(list.get(i),
+                    i > 0 ? list.get(i - 1).getId() : null,
+                    i < list.size() - 1 ? list.get(i + 1).getId() : null));
+        }
+        return result;
     }
 }
@@ -1,12 +1,14 @@
 package com.tasktracker.api.factories;
 
+import com.tasktracker.api.dto.TaskDto;
 import com.tasktracker.api.dto.TaskStateDto;
 import com.tasktracker.store.entities.TaskStateEntity;
+import com.tasktracker.store.projections.TaskStateTaskRow;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
@@ -15,22 +17,67 @@ public class TaskStateDtoFactory {
     private final TaskDtoFactory taskDtoFactory;
 
     public TaskStateDto makeTaskStateDto(TaskStateEntity taskState){
+        return makeTaskStateDto(taskState, null, null);
+    }
+
+    public TaskStateDto makeTaskStateDto(TaskStateEntity taskState, Long previousTaskStateId, Long nextTaskStateId){
         return TaskStateDto.builder()
                 .id(taskState.getId())
                 .name(taskState.getName())
-                .previousTaskStateId(taskState.getPreviousTaskState().map(TaskStateEntity::getId).orElse(null))
-                .nextTaskStateId(taskState.getNextTaskState().map(TaskStateEntity::getId).orElse(null))
-                .tasks(
-                        taskState.getTasks()
-                        .stream()
-                        .map(taskDtoFactory::makeTaskDto)
-                        .collect(Collectors.toList()))
+                .previousTaskStateId(previousTaskStateId)
+                .nextTaskStateId(nextTaskStateId)
+                .tasks(taskDtoFactory.makeTaskDtoList(taskState.getTasks()))
                 .build();
     }
 
+    /**
+     * Expects task states ordered by position, neighbour ids are taken from the adjacent elements.
+     */
     public List<TaskStateDto> makeTaskStateDtoList(List<TaskStateEntity> list){
-        return list.stream()
-                .map(this::makeTaskStateDto)
-                .collect(Collectors.toList());
+        List<TaskStateDto> result = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            result.add(makeTaskStateDto(list.get(i),
+                    i > 0 ? list.get(i - 1).getId() : null,
+                    i < list.size() - 1 ? list.get(i + 1).getId() : null));
+        }
+        return result;
+    }
+
+    /**
+     * Builds the task state tree from snapshot rows ordered by task state position and task rank.
+     */
+    public List<TaskStateDto> makeTaskStateDtoListFromRows(List<TaskStateTaskRow> rows){
+        List<TaskStateDto> result = new ArrayList<>();
+        TaskStateDto taskState = null;
+        for (TaskStateTaskRow row : rows) {
+            if (taskState == null || !taskState.getId().equals(row.getTaskStateId())) {
+                taskState = TaskStateDto.builder()
+                        .id(row.getTaskStateId())
+                        .name(row.getTaskStateName())
+                        .previousTaskStateId(taskState == null ? null : taskState.getId())
+                        .tasks(new ArrayList<>())
+                        .build();
+                if (!result.isEmpty()) {
+                    result.get(result.size() - 1).setNextTaskStateId(taskState.getId());
+                }
+                result.add(taskState);
+            }
+
+            if (row.getTaskId() != null) {
+                List<TaskDto> tasks = taskState.getTasks();
+                TaskDto previousTask = tasks.isEmpty() ? null : tasks.get(tasks.size() - 1);
+                TaskDto task = TaskDto.builder()
+                        .id(row.getTaskId())
+                        .name(row.getTaskName())
+                        .description(row.getTaskDescription())
+                        .previousTaskId(previousTask == null ? null : previousTask.getId())
+                        .build();
+                if (previousTask != null) {
+                    previousTask.setNextTaskId(task.getId());
+                }
+                tasks.add(task);
+            }
+        }
+        return result;
     }
 }
@@ -0,0 +1,55 @@
+package com.tasktracker.api.filters;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Tells the gateway's response cache what it may keep.
+ * <p>
+ * Reads may be kept by the gateway for {@code task-tracker.gateway-cache.s-max-age}, clients revalidate them
+ * with their ETag every time. Changes carry {@code X-Cache-Invalidate}, on which the gateway drops the cached
+ * responses of the person who made them.
+ * <p>
+ * Every gateway instance only sees the changes it forwarded, so by default the gateway revalidates every read
+ * as well ({@code s-maxage=0}) and only saves sending unchanged bodies. Raise it only with a single gateway instance.
+ */
+@Component
+public class GatewayCacheHeadersFilter extends OncePerRequestFilter {
+
+    public static final String CACHE_INVALIDATE_HEADER = "X-Cache-Invalidate";
+
+    private static final Set<String> CHANGING_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final String cacheControl;
+
+    public GatewayCacheHeadersFilter(@Value("${task-tracker.gateway-cache.s-max-age:0s}") Duration sMaxAge) {
+        this.cacheControl = CacheControl.maxAge(Duration.ZERO).sMaxAge(sMaxAge).getHeaderValue();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (request.getMethod().equals("GET")) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        } else if (CHANGING_METHODS.contains(request.getMethod())) {
+            response.setHeader(CACHE_INVALIDATE_HEADER, "person");
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+}
@@ -0,0 +1,95 @@
+package com.tasktracker.api.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasktracker.store.entities.TaskEntity;
+import com.tasktracker.store.entities.TaskStateEntity;
+import com.tasktracker.store.repositories.TaskRepo;
+import com.tasktracker.store.repositories.TaskStateRepo;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes a board as {@code {"boardId": ..., "taskStates": [{"id", "name", "tasks": [...]}]}},
+ * the same shape {@link BoardImportService} reads.
+ * <p>
+ * Tasks are read from a database cursor and detached as soon as they are written,
+ * so memory use doesn't depend on the size of the board.
+ */
+@Service
+@RequiredArgsConstructor
+public class BoardExportService {
+
+    private final BoardService boardService;
+    private final TaskStateRepo taskStateRepo;
+    private final TaskRepo taskRepo;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    /**
+     * Checks the ownership right away and defers the export itself until the response is written.
+     */
+    public StreamingResponseBody exportBoard(Long boardId, Long personId) {
+        boardService.getBoardOrThrowException(boardId, personId);
+
+        // task states and tasks are read with two queries, they should see the same snapshot
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        return outputStream -> transactionTemplate.executeWithoutResult(status -> {
+            try {
+                writeBoard(boardId, outputStream);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        });
+    }
+
+    private void writeBoard(Long boardId, OutputStream outputStream) throws IOException {
+        List<TaskStateEntity> taskStates = taskStateRepo.findAllByBoardIdOrderByPositionAscIdAsc(boardId);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+             Stream<TaskEntity> tasks = taskRepo.streamAllByBoardId(boardId)) {
+            Iterator<TaskEntity> taskIterator = tasks.iterator();
+            TaskEntity task = taskIterator.hasNext() ? taskIterator.next() : null;
+
+            generator.writeStartObject();
+            generator.writeNumberField("boardId", boardId);
+            generator.writeArrayFieldStart("taskStates");
+            for (TaskStateEntity taskState : taskStates) {
+                generator.writeStartObject();
+                generator.writeNumberField("id", taskState.getId());
+                generator.writeStringField("name", taskState.getName());
+                generator.writeArrayFieldStart("tasks");
+                // both queries use the same order, so the tasks of a task state come in one run
+                while (task != null && task.getTaskStateId().equals(taskState.getId())) {
+                    generator.writeStartObject();
+                    generator.writeNumberField("id", task.getId());
+                    generator.writeStringField("name", task.getName());
+                    generator.writeStringField("description", task.getDescription());
+                    generator.writeEndObject();
+                    entityManager.detach(task);
+                    task = taskIterator.hasNext() ? taskIterator.next() : null;
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.tasktracker.api.services;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasktracker.api.dto.BoardImportDto;
+import com.tasktracker.api.events.BoardChangedEvent;
+import com.tasktracker.api.exceptions.BadRequestException;
+import com.tasktracker.api.util.PositionUtil;
+import com.tasktracker.api.util.RankUtil;
+import com.tasktracker.store.entities.BoardEntity;
+import com.tasktracker.store.entities.TaskEntity;
+import com.tasktracker.store.entities.TaskStateEntity;
+import com.tasktracker.store.repositories.TaskRepo;
+import com.tasktracker.store.repositories.TaskStateRepo;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Imports task states and tasks into an existing board from a document shaped like
+ * {@code {"taskStates": [{"name": "...", "tasks": [{"name": "...", "description": "..."}]}]}}.
+ * <p>
+ * The document is read token by token and written in chunks of {@code task-tracker.import.chunk-size}
+ * rows, each in its own transaction, so memory use doesn't depend on the size of the upload.
+ * The import is not atomic: if it fails, the chunks written before stay in the board.
+ * <p>
+ * Progress is only logged, once per chunk. The response carries the final counts, and the error of a failed
+ * import says how much of it was written. Fields other than the names and descriptions, e.g. ids, are ignored.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BoardImportService {
+
+    private final BoardService boardService;
+    private final TaskStateRepo taskStateRepo;
+    private final TaskRepo taskRepo;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${task-tracker.import.chunk-size:1000}")
+    private int chunkSize;
+
+    public BoardImportDto importBoard(Long boardId, InputStream input, Long personId) {
+        BoardEntity board = boardService.getBoardOrThrowException(boardId, personId);
+        BoardImport boardImport = new BoardImport(board, personId, taskStateRepo.findAllByBoardIdOrderByPositionAscIdAsc(boardId));
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT, "board");
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("taskStates".equals(field)) {
+                    readTaskStates(parser, boardImport);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (JsonProcessingException exception) {
+            throw new BadRequestException(String.format("Board document is malformed: %s", exception.getOriginalMessage()));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        boardImport.flush();
+
+        return BoardImportDto.builder()
+                .boardId(boardId)
+                .taskStateCount(boardImport.taskStateCount)
+                .taskCount(boardImport.taskCount)
+                .build();
+    }
+
+    private void readTaskStates(JsonParser parser, BoardImport boardImport) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY, "taskStates");
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String name = null;
+            TaskStateEntity taskState = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("name".equals(field)) {
+                    name = parser.getValueAsString();
+                } else if ("tasks".equals(field)) {
+                    if (name == null) {
+                        throw new BadRequestException("Task state name should precede its tasks");
+                    }
+                    taskState = boardImport.addTaskState(name);
+                    expect(parser.currentToken(), JsonToken.START_ARRAY, "tasks");
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        boardImport.addTask(taskState, parser.readValueAs(ImportedTask.class));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (taskState == null) {
+                boardImport.addTaskState(name);
+            }
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record ImportedTask(String name, String description) {
+    }
+
+    private void expect(JsonToken token, JsonToken expected, String element) {
+        if (token != expected) {
+            throw new BadRequestException(String.format("Board document is malformed: %s should start with %s",
+                    element, expected.asString()));
+        }
+    }
+
+    private class BoardImport {
+
+        private final BoardEntity board;
+        private final Long personId;
+        private final Set<String> taskStateNames = new HashSet<>();
+        private final List<TaskStateEntity> pendingTaskStates = new ArrayList<>();
+        private final List<TaskEntity> pendingTasks = new ArrayList<>();
+
+        private Long lastPosition;
+        private String lastRank;
+        private long taskStateCount;
+        private long taskCount;
+
+        BoardImport(BoardEntity board, Long personId, List<TaskStateEntity> taskStates) {
+            this.board = board;
+            this.personId = personId;
+            taskStates.forEach(taskState -> taskStateNames.add(taskState.getName().toLowerCase()));
+            lastPosition = taskStates.isEmpty() ? null : taskStates.get(taskStates.size() - 1).getPosition();
+        }
+
+        TaskStateEntity addTaskState(String name) {
+            if (name == null || name.isBlank()) {
+                throw new BadRequestException("Task state name can't be empty.");
+            }
+            if (!taskStateNames.add(name.toLowerCase())) {
+                throw new BadRequestException(String.format("Task state %s already exists.", name));
+            }
+
+            lastPosition = PositionUtil.between(lastPosition, null);
+            lastRank = null;
+            TaskStateEntity taskState = TaskStateEntity.builder()
+                    .name(name)
+                    .position(lastPosition)
+                    .board(board)
+                    .personId(personId)
+                    .build();
+            pendingTaskStates.add(taskState);
+            taskStateCount++;
+            flushIfFull();
+            return taskState;
+        }
+
+        void addTask(TaskStateEntity taskState, ImportedTask task) {
+            if (task.name() == null || task.name().isBlank()) {
+                throw new BadRequestException("Task name can't be empty.");
+            }
+
+            lastRank = RankUtil.after(lastRank);
+            pendingTasks.add(TaskEntity.builder()
+                    .name(task.name())
+                    .description(task.description())
+                    .rank(lastRank)
+                    .taskState(taskState)
+                    .personId(personId)
+                    .build());
+            taskCount++;
+            flushIfFull();
+        }
+
+        private void flushIfFull() {
+            if (pendingTaskStates.size() + pendingTasks.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pendingTaskStates.isEmpty() && pendingTasks.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    taskStateRepo.saveAll(pendingTaskStates);
+                    taskRepo.saveAll(pendingTasks);
+                    taskRepo.flush();
+                    // the request may hold one persistence context for the whole upload
+                    entityManager.clear();
+                    eventPublisher.publishEvent(new BoardChangedEvent(board.getId(), personId));
+                });
+            } catch (DataIntegrityViolationException exception) {
+                throw new BadRequestException(String.format(
+                        "Import into board %d stopped after %d task states and %d tasks: task names should be unique within a task state",
+                        board.getId(), taskStateCount - pendingTaskStates.size(), taskCount - pendingTasks.size()));
+            }
+            pendingTaskStates.clear();
+            pendingTasks.clear();
+            log.info("Board {} import: {} task states, {} tasks written", board.getId(), taskStateCount, taskCount);
+        }
+    }
+}
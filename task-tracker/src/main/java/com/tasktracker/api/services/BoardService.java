@@ -2,17 +2,26 @@ package com.tasktracker.api.services;
 
 import com.tasktracker.api.dto.AnswerDto;
 import com.tasktracker.api.dto.BoardDto;
+import com.tasktracker.api.dto.PageDto;
+import com.tasktracker.api.events.BoardChangedEvent;
 import com.tasktracker.api.exceptions.BadRequestException;
 import com.tasktracker.api.exceptions.NotFoundException;
 import com.tasktracker.api.factories.BoardDtoFactory;
+import com.tasktracker.api.util.CursorUtil;
 import com.tasktracker.store.entities.BoardEntity;
 import com.tasktracker.store.repositories.BoardRepo;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -27,6 +36,8 @@ public class BoardService {
 
     private final BoardDtoFactory boardDtoFactory;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     public BoardEntity getBoardOrThrowException(Long boardId, Long personId) {
         BoardEntity boardEntity = boardRepo.findByPersonIdAndId(personId, boardId)
                 .orElseThrow(() -> {
@@ -35,11 +46,28 @@ public class BoardService {
         return boardEntity;
     }
 
+    public Long getContentVersion(Long boardId, Long personId) {
+        return boardRepo.findContentVersion(boardId, personId)
+                .orElseThrow(() -> {
+                    throw new NotFoundException(String.format("Board with id \"%d\" was no found", boardId));
+                });
+    }
+
+    /**
+     * Bumps the content version in the transaction that changed the board. The update locks the board row,
+     * so concurrent changes get consecutive versions.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBoardChanged(BoardChangedEvent event) {
+        boardRepo.incrementContentVersion(event.boardId());
+    }
+
     @Transactional
     public AnswerDto deleteBoard(Long boardId, Long personId) {
         getBoardOrThrowException(boardId, personId);
 
         boardRepo.deleteByIdAndPersonId(boardId, personId);
+        eventPublisher.publishEvent(new BoardChangedEvent(boardId, personId));
         return AnswerDto.makeDefault(true);
     }
 
@@ -49,7 +77,7 @@ public class BoardService {
 
         List<BoardEntity> boardEntityList;
         if (prefixName.isPresent()){
-            boardEntityList = boardRepo.findAllByNameStartingWithIgnoreCaseAndPersonId(prefixName.get(), personId);
+            boardEntityList = boardRepo.findAllByPersonIdAndLowerNameLike(personId, toPrefixPattern(prefixName.get()));
         }else {
             boardEntityList = boardRepo.findAllByPersonId(personId);
         }
@@ -60,6 +88,42 @@ public class BoardService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns up to {@code limit} boards ordered by id, following the {@code cursor} or from the first one.
+     */
+    public PageDto<BoardDto> fetchBoardPage(Optional<String> prefixName,
+                                            Optional<String> cursor,
+                                            int limit,
+                                            Long personId) {
+        CursorUtil.checkLimit(limit);
+        prefixName = prefixName.filter(name -> !name.trim().isEmpty());
+        Long afterId = cursor.map(CursorUtil::decode).map(CursorUtil.Cursor::id).orElse(0L);
+        Pageable pageable = PageRequest.of(0, limit + 1);
+
+        List<BoardEntity> boardEntityList = prefixName.isPresent() ?
+                boardRepo.findAllByPersonIdAndLowerNameLikeAfter(
+                        personId, toPrefixPattern(prefixName.get()), afterId, pageable) :
+                boardRepo.findAllByPersonIdAndIdGreaterThanOrderByIdAsc(personId, afterId, pageable);
+
+        boolean hasNextPage = boardEntityList.size() > limit;
+        if (hasNextPage) {
+            boardEntityList = boardEntityList.subList(0, limit);
+        }
+        return PageDto.<BoardDto>builder()
+                .items(boardEntityList.stream()
+                        .map(boardDtoFactory::makeBoardDto)
+                        .collect(Collectors.toList()))
+                .nextCursor(hasNextPage ? CursorUtil.encode(boardEntityList.get(limit - 1).getId()) : null)
+                .build();
+    }
+
+    private static String toPrefixPattern(String prefix) {
+        return prefix.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+
     @Transactional
     public BoardDto createBoardOrUpdateBoard(Optional<Long> boardId,
                                              Optional<String> boardName,
@@ -92,7 +156,8 @@ public class BoardService {
                     finalBoardEntity.setName(name);
                     finalBoardEntity.setPersonId(personId);
         });
-        BoardEntity savedBoard = boardRepo.saveAndFlush(finalBoardEntity);
+        BoardEntity savedBoard = boardRepo.save(finalBoardEntity);
+        eventPublisher.publishEvent(new BoardChangedEvent(finalBoardEntity.getId(), personId));
         return boardDtoFactory.makeBoardDto(savedBoard);
     }
 }
@@ -0,0 +1,93 @@
+package com.tasktracker.api.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tasktracker.api.dto.BoardSnapshotDto;
+import com.tasktracker.api.events.BoardChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Keeps the serialized task states of recently read boards, see {@link TaskStateService#getBoardSnapshot}.
+ * <p>
+ * Entries are keyed by board and owner and checked against the current board content version on every read,
+ * changes committed by other instances never reach this cache as events. Entries are weighed by their size
+ * in bytes and dropped after every committed {@link BoardChangedEvent}. Hits and misses are reported as the
+ * {@code cache.*} metrics tagged {@code cache=board-snapshots}.
+ */
+@Component
+public class BoardSnapshotCache {
+
+    private final TaskStateService taskStateService;
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, Snapshot> cache;
+
+    public BoardSnapshotCache(TaskStateService taskStateService,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${task-tracker.cache.board-snapshots.max-bytes:67108864}") long maxBytes,
+                              @Value("${task-tracker.cache.board-snapshots.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.taskStateService = taskStateService;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Snapshot snapshot) -> snapshot.json().length)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "board-snapshots");
+    }
+
+    /**
+     * Returns the task states of the board as JSON, reading them from the database on a miss or when the
+     * cached snapshot is older than {@code contentVersion}, see {@link BoardService#getContentVersion}.
+     * A change committed while the snapshot is being read waits for the read and then drops its result.
+     */
+    public Snapshot getBoardSnapshot(Long boardId, Long personId, Long contentVersion) {
+        Key key = new Key(boardId, personId);
+        Snapshot snapshot = cache.get(key, this::load);
+        if (snapshot.contentVersion() < contentVersion) {
+            cache.asMap().remove(key, snapshot);
+            snapshot = cache.get(key, this::load);
+        }
+        return snapshot;
+    }
+
+    private Snapshot load(Key key) {
+        try {
+            BoardSnapshotDto snapshot = taskStateService.getBoardSnapshot(key.boardId(), key.personId());
+            return new Snapshot(snapshot.getContentVersion(), objectMapper.writeValueAsBytes(snapshot.getTaskStates()));
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBoardChanged(BoardChangedEvent event) {
+        cache.invalidate(new Key(event.boardId(), event.personId()));
+    }
+
+    /**
+     * Drops every entry, for changes made past the services, e.g. by scripts.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Serialized task states together with the board content version they were read at.
+     */
+    public record Snapshot(Long contentVersion, byte[] json) {
+    }
+
+    private record Key(Long boardId, Long personId) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.tasktracker.api.services;
+
+import com.tasktracker.api.dto.PageDto;
+import com.tasktracker.api.dto.TaskSearchResultDto;
+import com.tasktracker.api.exceptions.BadRequestException;
+import com.tasktracker.api.util.CursorUtil;
+import com.tasktracker.store.migrations.Databases;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Finds tasks across all boards of a person by words of their names and descriptions.
+ * <p>
+ * On PostgreSQL the words are matched against the {@code task.search_vector} column through the
+ * {@code (person_id, search_vector)} GIN index, see {@link com.tasktracker.store.migrations.IndexMigration},
+ * and results are ranked with {@code ts_rank}.
+ * Other databases fall back to unranked {@code like} matching, which is only meant for tests and local runs
+ * on H2. The PostgreSQL query is covered by the tests tagged {@code postgres}, run with {@code ./gradlew postgresTest}.
+ * Either way the ownership filter is part of the search query.
+ */
+@Service
+@RequiredArgsConstructor
+public class TaskSearchService {
+
+    private static final String POSTGRES_SEARCH =
+            "select t.id, t.name, t.description, t.task_state_id, ts.board_id, " +
+                    "ts_rank(t.search_vector, q.query) as score " +
+            "from task t " +
+            "join task_state ts on ts.id = t.task_state_id " +
+            "cross join to_tsquery('simple', :query) as q(query) " +
+            "where t.person_id = :personId and t.search_vector @@ q.query " +
+            "and (ts_rank(t.search_vector, q.query) < :afterScore " +
+                    "or (ts_rank(t.search_vector, q.query) = :afterScore and t.id > :afterId)) " +
+            "order by score desc, t.id " +
+            "limit :limit";
+
+    private static final String FALLBACK_SEARCH =
+            "select t.id, t.name, t.description, t.task_state_id, ts.board_id, 0 as score " +
+            "from task t " +
+            "join task_state ts on ts.id = t.task_state_id " +
+            "where t.person_id = :personId and %s and t.id > :afterId " +
+            "order by t.id " +
+            "limit :limit";
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(
+            TaskSearchResultDto.builder()
+                    .id(rs.getLong("id"))
+                    .name(rs.getString("name"))
+                    .description(rs.getString("description"))
+                    .taskStateId(rs.getLong("task_state_id"))
+                    .boardId(rs.getLong("board_id"))
+                    .build(),
+            rs.getFloat("score"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    /**
+     * Returns up to {@code limit} tasks containing every word of {@code query}, the last word may be a prefix.
+     */
+    public PageDto<TaskSearchResultDto> search(String query, Optional<String> cursor, int limit, Long personId) {
+        CursorUtil.checkLimit(limit);
+        List<String> words = Arrays.stream(query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toList());
+        if (words.isEmpty()) {
+            throw new BadRequestException("Search query should contain letters or digits");
+        }
+
+        Optional<CursorUtil.Cursor> after = cursor.map(CursorUtil::decode);
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("personId", personId)
+                .addValue("afterId", after.map(CursorUtil.Cursor::id).orElse(0L))
+                .addValue("limit", limit + 1);
+
+        List<Row> rows;
+        if (isPostgres()) {
+            float afterScore;
+            try {
+                afterScore = after.map(it -> Float.parseFloat(it.key())).orElse(Float.POSITIVE_INFINITY);
+            } catch (NumberFormatException exception) {
+                throw new BadRequestException(String.format("Cursor \"%s\" is malformed", cursor.get()));
+            }
+            parameters.addValue("query", words.stream()
+                            .map(word -> word + ":*")
+                            .collect(Collectors.joining(" & ")))
+                    .addValue("afterScore", afterScore);
+            rows = jdbcTemplate.query(POSTGRES_SEARCH, parameters, ROW_MAPPER);
+        } else {
+            IntStream.range(0, words.size())
+                    .forEach(i -> parameters.addValue("word" + i, "%" + words.get(i) + "%"));
+            String conditions = IntStream.range(0, words.size())
+                    .mapToObj(i -> String.format(
+                            "(lower(t.name) like :word%1$d or lower(t.description) like :word%1$d)", i))
+                    .collect(Collectors.joining(" and "));
+            rows = jdbcTemplate.query(String.format(FALLBACK_SEARCH, conditions), parameters, ROW_MAPPER);
+        }
+
+        List<TaskSearchResultDto> items = rows.stream()
+                .limit(limit)
+                .map(Row::result)
+                .collect(Collectors.toList());
+        if (rows.size() <= limit) {
+            return PageDto.<TaskSearchResultDto>builder().items(items).build();
+        }
+        Row last = rows.get(limit - 1);
+        return PageDto.<TaskSearchResultDto>builder()
+                .items(items)
+                .nextCursor(CursorUtil.encode(Float.toString(last.score()), last.result().getId()))
+                .build();
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = Databases.isPostgreSql(jdbcTemplate.getJdbcTemplate());
+        }
+        return postgres;
+    }
+
+    private record Row(TaskSearchResultDto result, float score) {
+    }
+}
@@ -1,19 +1,28 @@
 package com.tasktracker.api.services;
 
 import com.tasktracker.api.dto.AnswerDto;
+import com.tasktracker.api.dto.PageDto;
 import com.tasktracker.api.dto.TaskDto;
+import com.tasktracker.api.events.BoardChangedEvent;
 import com.tasktracker.api.exceptions.BadRequestException;
 import com.tasktracker.api.exceptions.NotFoundException;
 import com.tasktracker.api.factories.TaskDtoFactory;
+import com.tasktracker.api.util.CursorUtil;
+import com.tasktracker.api.util.RankUtil;
 import com.tasktracker.store.entities.TaskEntity;
 import com.tasktracker.store.entities.TaskStateEntity;
 import com.tasktracker.store.repositories.TaskRepo;
 import com.tasktracker.store.repositories.TaskStateRepo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +33,8 @@ public class TaskService {
     private final TaskRepo taskRepo;
     private final TaskDtoFactory taskDtoFactory;
     private final TaskStateRepo taskStateRepo;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
     @Transactional
     public TaskDto createTask(Long taskStateId, String taskName, Long personId) {
@@ -31,46 +42,43 @@ public class TaskService {
             throw new BadRequestException("Task state name can't be empty.");
         }
 
-        TaskStateEntity taskStateEntity = getTaskStateOrThrowException(taskStateId, personId);
-
-        Optional<TaskEntity> optionalTaskEntity = Optional.empty();
-        for (TaskEntity task : taskStateEntity.getTasks()){
-            if (task.getName().equals(taskName)){
-                throw new BadRequestException(String.format("Task with name %s already exists", taskName));
-            }
+        // concurrent appends would read the same last task and get the same rank
+        TaskStateEntity taskStateEntity = taskStateRepo.findLockedByIdAndPersonId(taskStateId, personId)
+                .orElseThrow(() -> {
+                    throw new NotFoundException(String.format("Task state with id %d was not found", taskStateId));
+                });
 
-            if (!task.getNextTask().isPresent()){
-                optionalTaskEntity = Optional.of(task);
-            }
+        TaskEntity lastTask = taskRepo.findFirstByTaskStateIdOrderByRankDescIdDesc(taskStateId).orElse(null);
+
+        final TaskEntity savedTask;
+        try {
+            savedTask = taskRepo.saveAndFlush(
+                    TaskEntity.builder()
+                            .name(taskName)
+                            .rank(RankUtil.after(lastTask == null ? null : lastTask.getRank()))
+                            .taskState(taskStateEntity)
+                            .personId(personId)
+                            .build()
+            );
+        } catch (DataIntegrityViolationException exception) {
+            throw new BadRequestException(String.format("Task with name %s already exists", taskName));
         }
-
-        TaskEntity taskEntity = taskRepo.saveAndFlush(
-                TaskEntity.builder()
-                        .name(taskName)
-                        .taskState(taskStateEntity)
-                        .build()
-        );
-
-        optionalTaskEntity.ifPresent(anotherTask ->{
-             taskEntity.setPreviousTask(anotherTask);
-             anotherTask.setNextTask(taskEntity);
-             taskRepo.saveAndFlush(anotherTask);
-        });
-
-        final TaskEntity savedTask = taskRepo.saveAndFlush(taskEntity);
-        return taskDtoFactory.makeTaskDto(savedTask);
+        eventPublisher.publishEvent(new BoardChangedEvent(taskStateEntity.getBoardId(), personId));
+        return taskDtoFactory.makeTaskDto(savedTask, lastTask == null ? null : lastTask.getId(), null);
     }
 
     private TaskStateEntity getTaskStateOrThrowException(Long taskStateId, Long personId) {
-        Optional<TaskStateEntity> optionalTaskStateEntity = taskStateRepo.findById(taskStateId);
-        if (optionalTaskStateEntity.isEmpty()){
-            throw new NotFoundException(String.format("Task state with id %d was not found", taskStateId));
-        }else {
-            if (optionalTaskStateEntity.get().getBoard().getPersonId() != personId){
-                throw new NotFoundException(String.format("Task state with id %d was not found", taskStateId));
-            }
-        }
-        return optionalTaskStateEntity.get();
+        return taskStateRepo.findByIdAndPersonId(taskStateId, personId)
+                .orElseThrow(() -> {
+                    throw new NotFoundException(String.format("Task state with id %d was not found", taskStateId));
+                });
+    }
+
+    public Long getBoardContentVersion(Long taskStateId, Long personId) {
+        return taskStateRepo.findBoardContentVersion(taskStateId, personId)
+                .orElseThrow(() -> {
+                    throw new NotFoundException(String.format("Task state with id %d was not found", taskStateId));
+                });
     }
 
     public List<TaskEntity> getTasks(Long taskStateId, Long personId) {
@@ -78,54 +86,51 @@ public class TaskService {
         return taskStateEntity.getTasks();
     }
 
-    @Transactional
-    public AnswerDto deleteTask(Long taskId, Long personId) {
-        TaskEntity taskEntity = getTaskOrThrowException(taskId, personId);
-
-        Optional<TaskEntity> optionalLeftTask = taskEntity.getPreviousTask();
-        Optional<TaskEntity> optionalRightTask = taskEntity.getNextTask();
-
-        if (optionalLeftTask.isEmpty() && optionalRightTask.isEmpty()){
-            taskRepo.deleteById(taskId);
-        } else if (optionalLeftTask.isPresent() && optionalRightTask.isPresent()){
-            TaskEntity leftTask = optionalLeftTask.get();
-            TaskEntity rightTask = optionalRightTask.get();
-
-            leftTask.setNextTask(rightTask);
-            rightTask.setPreviousTask(leftTask);
-            taskRepo.save(leftTask);
-            taskRepo.save(rightTask);
-
-            taskRepo.deleteById(taskId);
-        } else if (optionalLeftTask.isPresent() && optionalRightTask.isEmpty()){
-            TaskEntity leftTask = optionalLeftTask.get();
+    /**
+     * Returns up to {@code limit} tasks following the {@code cursor}, or the first ones without it.
+     * Reads one task more than asked, it tells whether there is a next page and who the last task's neighbour is.
+     */
+    public PageDto<TaskDto> getTaskPage(Long taskStateId, Optional<String> cursor, int limit, Long personId) {
+        CursorUtil.checkLimit(limit);
+        if (!taskStateRepo.existsByIdAndPersonId(taskStateId, personId)) {
+            throw new NotFoundException(String.format("Task state with id %d was not found", taskStateId));
+        }
 
-            leftTask.setNextTask(null);
-            taskRepo.save(leftTask);
+        Optional<CursorUtil.Cursor> after = cursor.map(CursorUtil::decode);
+        List<TaskEntity> tasks = after.isPresent() ?
+                taskRepo.findAllAfter(taskStateId, after.get().key(), after.get().id(), PageRequest.of(0, limit + 1)) :
+                taskRepo.findAllByTaskStateIdOrderByRankAscIdAsc(taskStateId, PageRequest.of(0, limit + 1));
 
-            taskRepo.deleteById(taskId);
-        }else if (optionalLeftTask.isEmpty() && optionalRightTask.isPresent()){
-            TaskEntity rightTask = optionalRightTask.get();
+        List<TaskDto> items = taskDtoFactory.makeTaskDtoList(tasks);
+        if (!items.isEmpty()) {
+            items.get(0).setPreviousTaskId(after.map(CursorUtil.Cursor::id).orElse(null));
+        }
+        if (tasks.size() <= limit) {
+            return PageDto.<TaskDto>builder().items(items).build();
+        }
+        TaskEntity last = tasks.get(limit - 1);
+        return PageDto.<TaskDto>builder()
+                .items(items.subList(0, limit))
+                .nextCursor(CursorUtil.encode(last.getRank(), last.getId()))
+                .build();
+    }
 
-            rightTask.setPreviousTask(null);
-            taskRepo.save(rightTask);
+    @Transactional
+    public AnswerDto deleteTask(Long taskId, Long personId) {
+        TaskEntity taskEntity = getTaskOrThrowException(taskId, personId);
 
-            taskRepo.deleteById(taskId);
-        }
+        taskRepo.deleteById(taskEntity.getId());
+        eventPublisher.publishEvent(new BoardChangedEvent(taskEntity.getTaskState().getBoardId(), personId));
 
         return AnswerDto.makeDefault(true);
     }
 
 
     public TaskEntity getTaskOrThrowException(Long taskId, Long personId){
-        TaskEntity taskEntity  = taskRepo.findById(taskId).orElseThrow(
+        return taskRepo.findByIdAndPersonId(taskId, personId).orElseThrow(
                 () -> {
                     throw new NotFoundException(String.format("Task with id %d was not found", taskId));
                 });
-        if (!taskEntity.getTaskState().getBoard().getPersonId().equals(personId)){
-            throw new NotFoundException(String.format("Task with id %d was not found", taskId));
-        }
-        return taskEntity;
     }
 
     @Transactional
@@ -152,7 +157,13 @@ public class TaskService {
             }
         }
 
-        final TaskEntity savedTask = taskRepo.saveAndFlush(taskEntity);
+        try {
+            // flushed here so a name taken in the same task state surfaces as a constraint violation we can report
+            taskRepo.saveAndFlush(taskEntity);
+        } catch (DataIntegrityViolationException exception) {
+            throw new BadRequestException(String.format("Task with name %s already exists", taskEntity.getName()));
+        }
+        eventPublisher.publishEvent(new BoardChangedEvent(taskEntity.getTaskState().getBoardId(), personId));
         return TaskDto.builder()
                 .id(taskEntity.getId())
                 .name(taskEntity.getName())
@@ -176,102 +187,83 @@ public class TaskService {
         }
 
         TaskEntity currTask = getTaskOrThrowException(taskId, personId);
-        Optional<TaskEntity> previousCurrTask = currTask.getPreviousTask();
-        Optional<TaskEntity> nextCurrTask = currTask.getNextTask();
-        previousCurrTask.ifPresent(task -> {
-            if (nextCurrTask.isPresent()){
-                task.setNextTask(nextCurrTask.get());
-            }else {
-                task.setNextTask(null);
-            }
-            taskRepo.save(task);
-        });
-
-        nextCurrTask.ifPresent(task -> {
-            if (previousCurrTask.isPresent()){
-                task.setPreviousTask(previousCurrTask.get());
-            } else {
-                task.setPreviousTask(null);
-            }
-            taskRepo.save(task);
-        });
-
-        Optional<TaskEntity> previousTask = (previousTaskId.isPresent()) ?
-                taskRepo.findById(previousTaskId.get()) : Optional.empty();
-
-        Optional<TaskEntity> nextTask = (nextTaskId.isPresent()) ?
-                taskRepo.findById(nextTaskId.get()) : Optional.empty();
-
-        if (previousTask.isEmpty()){
-            nextTask.ifPresent(task -> {
-                if (!task.getTaskState().getBoard().getId()
-                        .equals(currTask.getTaskState().getBoard().getId())){
-                    throw new BadRequestException(String.format("Task with id %d is from different board", task.getId()));
-                }
-                task.setPreviousTask(currTask);
-                currTask.setNextTask(task);
-                taskRepo.save(task);
-            });
-            currTask.setPreviousTask(null);
-            taskRepo.save(currTask);
-
-        }else if (nextTask.isEmpty()){
-            previousTask.ifPresent(task -> {
-                if (!task.getTaskState().getBoard().getId()
-                        .equals(currTask.getTaskState().getBoard().getId())){
-                    throw new BadRequestException(String.format("Task with id %d is from different board", task.getId()));
-                }
-                task.setNextTask(currTask);
-                currTask.setPreviousTask(task);
-                taskRepo.save(task);
-            });
-            currTask.setNextTask(null);
-            taskRepo.save(currTask);
-        }else {
-            if (!previousTask.get().getTaskState().getBoard().getId()
-                    .equals(currTask.getTaskState().getBoard().getId())){
-                throw new BadRequestException(String.format("Task with id %d is from different board",
-                        previousTask.get().getId()));
+        if (previousTaskId.filter(currTask.getId()::equals).isPresent() ||
+                nextTaskId.filter(currTask.getId()::equals).isPresent()){
+            throw new BadRequestException("Task can't be placed next to itself");
+        }
+
+        Optional<TaskEntity> previousTask = previousTaskId.flatMap(id -> taskRepo.findByIdAndPersonId(id, personId));
+        Optional<TaskEntity> nextTask = nextTaskId.flatMap(id -> taskRepo.findByIdAndPersonId(id, personId));
+        if (previousTask.isEmpty() && nextTask.isEmpty()){
+            throw new NotFoundException("Neither previous nor next task was found");
+        }
+        previousTask.ifPresent(task -> checkSameBoard(task, currTask));
+        nextTask.ifPresent(task -> checkSameBoard(task, currTask));
+
+        TaskStateEntity taskState = (previousTask.isPresent() ? previousTask : nextTask).get().getTaskState();
+
+        if (previousTask.isPresent() && nextTask.isPresent()){
+            if (!previousTask.get().getTaskStateId().equals(nextTask.get().getTaskStateId())){
+                throw new BadRequestException(String.format("Tasks with id %d and %d are from different task states",
+                        previousTask.get().getId(), nextTask.get().getId()));
             }
-            if (!nextTask.get().getTaskState().getBoard().getId()
-                    .equals(currTask.getTaskState().getBoard().getId())){
-                throw new BadRequestException(String.format("Task with id %d is from different board",
-                        nextTask.get().getId()));
+            if (compareRanks(previousTask.get(), nextTask.get()) >= 0){
+                throw new BadRequestException(String.format("Task with id %d is not placed before task with id %d",
+                        previousTask.get().getId(), nextTask.get().getId()));
             }
-            previousTask.get().setNextTask(currTask);
-            nextTask.get().setPreviousTask(currTask);
-            taskRepo.save(previousTask.get());
-            taskRepo.save(nextTask.get());
-
-            currTask.setPreviousTask(previousTask.get());
-            currTask.setNextTask(nextTask.get());
-            taskRepo.save(currTask);
+        } else if (previousTask.isPresent()){
+            nextTask = taskRepo.findAllAfter(previousTask.get().getTaskStateId(), previousTask.get().getRank(),
+                            previousTask.get().getId(), PageRequest.of(0, 2)).stream()
+                    .filter(task -> !task.getId().equals(currTask.getId()))
+                    .findFirst();
+        } else {
+            previousTask = taskRepo.findAllBefore(nextTask.get().getTaskStateId(), nextTask.get().getRank(),
+                            nextTask.get().getId(), PageRequest.of(0, 2)).stream()
+                    .filter(task -> !task.getId().equals(currTask.getId()))
+                    .findFirst();
+        }
+        if (previousTask.isPresent() && nextTask.isPresent() &&
+                previousTask.get().getRank().equals(nextTask.get().getRank())){
+            rerank(taskState.getId());
         }
 
-        return taskDtoFactory.makeTaskDto(currTask);
+        // two moves into the same gap would compute the same rank, bumping the neighbours makes one of them fail
+        previousTask.ifPresent(task -> entityManager.lock(task, LockModeType.OPTIMISTIC_FORCE_INCREMENT));
+        nextTask.ifPresent(task -> entityManager.lock(task, LockModeType.OPTIMISTIC_FORCE_INCREMENT));
+
+        currTask.setTaskState(taskState);
+        currTask.setRank(RankUtil.between(
+                previousTask.map(TaskEntity::getRank).orElse(null),
+                nextTask.map(TaskEntity::getRank).orElse(null)));
+        taskRepo.save(currTask);
+        eventPublisher.publishEvent(new BoardChangedEvent(taskState.getBoardId(), personId));
+
+        return taskDtoFactory.makeTaskDto(currTask,
+                previousTask.map(TaskEntity::getId).orElse(null),
+                nextTask.map(TaskEntity::getId).orElse(null));
+    }
+
+    /**
+     * Gives the tasks of the task state distinct ranks again, in their current order.
+     * Tasks with the same rank, e.g. left by a concurrent append and move, have no rank between them.
+     */
+    private void rerank(Long taskStateId){
+        List<TaskEntity> tasks = taskRepo.findAllByTaskStateIdOrderByRankAscIdAsc(taskStateId, Pageable.unpaged());
+        List<String> ranks = RankUtil.sequence(null, tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).setRank(ranks.get(i));
+        }
     }
-    public List<TaskEntity> toSort(List<TaskEntity> unsortedList){
-        List<TaskEntity> sortedList=new ArrayList<>();
-
-        TaskEntity firstTask = unsortedList
-                .stream()
-                .filter(task -> task.getPreviousTask().isEmpty())
-                .findFirst()
-                .orElse(unsortedList.get(0));
-
-        sortedList.add(firstTask);
-        TaskEntity currTask = firstTask.getNextTask().orElse(null);
-
-        int i = 0;
-        while (i != unsortedList.size() - 1){
-            if (currTask != null){
-                sortedList.add(currTask);
-                currTask = currTask.getNextTask().orElse(null);
-                i++;
-            }else break;
+
+    private void checkSameBoard(TaskEntity task, TaskEntity currTask){
+        if (!task.getTaskState().getBoardId().equals(currTask.getTaskState().getBoardId())){
+            throw new BadRequestException(String.format("Task with id %d is from different board", task.getId()));
         }
+    }
 
-        return sortedList;
+    private int compareRanks(TaskEntity task, TaskEntity anotherTask){
+        int result = task.getRank().compareTo(anotherTask.getRank());
+        return result != 0 ? result : task.getId().compareTo(anotherTask.getId());
     }
 
 }
@@ -0,0 +1,38 @@
+package com.tasktracker.api.services;
+
+import com.tasktracker.api.events.TaskStateRebalanceEvent;
+import com.tasktracker.api.util.PositionUtil;
+import com.tasktracker.store.repositories.TaskStateRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskStateRebalancer {
+
+    private final TaskStateRepo taskStateRepo;
+
+    /**
+     * Spreads positions of the board's task states {@link PositionUtil#GAP} apart, keeping their order.
+     * Entities already loaded in the current transaction keep their old positions and versions until refreshed.
+     */
+    @Transactional
+    public void rebalance(Long boardId) {
+        taskStateRepo.renumberPositions(boardId, PositionUtil.GAP);
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onRebalanceRequested(TaskStateRebalanceEvent event) {
+        rebalance(event.boardId());
+        log.info("Task states of board {} were rebalanced", event.boardId());
+    }
+}
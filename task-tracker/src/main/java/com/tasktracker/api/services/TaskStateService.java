@@ -1,19 +1,27 @@
 package com.tasktracker.api.services;
 
 import com.tasktracker.api.dto.AnswerDto;
+import com.tasktracker.api.dto.BoardSnapshotDto;
 import com.tasktracker.api.dto.TaskStateDto;
+import com.tasktracker.api.events.BoardChangedEvent;
+import com.tasktracker.api.events.TaskStateRebalanceEvent;
 import com.tasktracker.api.exceptions.BadRequestException;
 import com.tasktracker.api.exceptions.NotFoundException;
 import com.tasktracker.api.factories.TaskStateDtoFactory;
+import com.tasktracker.api.util.PositionUtil;
 import com.tasktracker.store.entities.BoardEntity;
 import com.tasktracker.store.entities.TaskStateEntity;
 import com.tasktracker.store.repositories.BoardRepo;
 import com.tasktracker.store.repositories.TaskStateRepo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +34,12 @@ public class TaskStateService {
 
     private final BoardRepo boardRepo;
 
+    private final TaskStateRebalancer taskStateRebalancer;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final EntityManager entityManager;
+
      private BoardEntity getBoardOrThrowException(Long boardId, Long personId) {
         BoardEntity boardEntity = boardRepo.findByPersonIdAndId(personId, boardId)
                 .orElseThrow(() -> {
@@ -38,44 +52,56 @@ public class TaskStateService {
         return getBoardOrThrowException(boardId, personId).getTaskStates();
     }
 
+    /**
+     * Reads the whole board in two statements: the ownership check, which reads the content version,
+     * and one flat join of task states and tasks. The version is read first, so it is never newer than the rows.
+     */
+    public BoardSnapshotDto getBoardSnapshot(Long boardId, Long personId) {
+        Long contentVersion = boardRepo.findContentVersion(boardId, personId)
+                .orElseThrow(() -> {
+                    throw new NotFoundException(String.format("Board with id \"%d\" was no found", boardId));
+                });
+        return BoardSnapshotDto.builder()
+                .contentVersion(contentVersion)
+                .taskStates(taskStateDtoFactory.makeTaskStateDtoListFromRows(taskStateRepo.findBoardSnapshot(boardId)))
+                .build();
+    }
+
     @Transactional
     public TaskStateDto createTaskState(Long boardId, String taskStateName, Long personId) {
         if (taskStateName.isBlank()) {
             throw new BadRequestException("Task state name can't be empty.");
         }
 
-        BoardEntity board = getBoardOrThrowException(boardId, personId);
-
-
-        Optional<TaskStateEntity> optionalAnotherTaskState = Optional.empty();
-        for (TaskStateEntity taskState: board.getTaskStates()) {
-
-            if (taskState.getName().equalsIgnoreCase(taskStateName)) {
-                throw new BadRequestException(String.format("Task state %s already exists.", taskStateName));
-            }
-
-            if (!taskState.getNextTaskState().isPresent()) {
-                optionalAnotherTaskState = Optional.of(taskState);
-                break;
-            }
-        }
-
-        TaskStateEntity taskState = taskStateRepo.saveAndFlush(
-                TaskStateEntity.builder()
-                        .name(taskStateName)
-                        .board(board)
-                        .build()
-        );
+        // concurrent appends would read the same last task state and get the same position
+        BoardEntity board = boardRepo.findLockedByPersonIdAndId(personId, boardId)
+                .orElseThrow(() -> {
+                    throw new NotFoundException(String.format("Board with id \"%d\" was no found", boardId));
+                });
 
-        optionalAnotherTaskState
+        taskStateRepo.findTaskStateEntityByBoardIdAndNameIgnoreCase(boardId, taskStateName)
                 .ifPresent(anotherTaskState -> {
-                    taskState.setPreviousTaskState(anotherTaskState);
-                    anotherTaskState.setNextTaskState(taskState);
-                    taskStateRepo.saveAndFlush(anotherTaskState);
+                    throw new BadRequestException(String.format("Task state %s already exists.", taskStateName));
                 });
 
-        final TaskStateEntity savedTaskState = taskStateRepo.saveAndFlush(taskState);
-        return taskStateDtoFactory.makeTaskStateDto(savedTaskState);
+        TaskStateEntity lastTaskState = taskStateRepo.findFirstByBoardIdOrderByPositionDescIdDesc(boardId).orElse(null);
+
+        final TaskStateEntity savedTaskState;
+        try {
+            savedTaskState = taskStateRepo.saveAndFlush(
+                    TaskStateEntity.builder()
+                            .name(taskStateName)
+                            .position(PositionUtil.between(lastTaskState == null ? null : lastTaskState.getPosition(), null))
+                            .board(board)
+                            .personId(personId)
+                            .build()
+            );
+        } catch (DataIntegrityViolationException exception) {
+            throw new BadRequestException(String.format("Task state %s already exists.", taskStateName));
+        }
+        eventPublisher.publishEvent(new BoardChangedEvent(boardId, personId));
+        return taskStateDtoFactory.makeTaskStateDto(savedTaskState,
+                lastTaskState == null ? null : lastTaskState.getId(), null);
     }
 
     @Transactional
@@ -87,7 +113,7 @@ public class TaskStateService {
 
 
         taskStateRepo.findTaskStateEntityByBoardIdAndNameIgnoreCase(
-                        taskStateEntity.getBoard().getId(), newTaskStateName)
+                        taskStateEntity.getBoardId(), newTaskStateName)
         .filter(anotherTaskState->!anotherTaskState.getId().equals(taskStateId))
                 .ifPresent(it->{
                     throw new BadRequestException(
@@ -97,89 +123,45 @@ public class TaskStateService {
 
 
         taskStateEntity.setName(newTaskStateName);
-        final TaskStateEntity savedTaskState = taskStateRepo.saveAndFlush(taskStateEntity);
-        return taskStateDtoFactory.makeTaskStateDto(savedTaskState);
+        final TaskStateEntity savedTaskState;
+        try {
+            // flushed here so a concurrent rename surfaces as a constraint violation we can report
+            savedTaskState = taskStateRepo.saveAndFlush(taskStateEntity);
+        } catch (DataIntegrityViolationException exception) {
+            throw new BadRequestException(String.format("Task state %s already exists.", newTaskStateName));
+        }
+        eventPublisher.publishEvent(new BoardChangedEvent(taskStateEntity.getBoardId(), personId));
+        return taskStateDtoFactory.makeTaskStateDto(savedTaskState,
+                taskStateRepo.findFirstByBoardIdAndPositionLessThanAndIdNotOrderByPositionDescIdDesc(
+                        taskStateEntity.getBoardId(), taskStateEntity.getPosition(), taskStateId)
+                        .map(TaskStateEntity::getId).orElse(null),
+                taskStateRepo.findFirstByBoardIdAndPositionGreaterThanAndIdNotOrderByPositionAscIdAsc(
+                        taskStateEntity.getBoardId(), taskStateEntity.getPosition(), taskStateId)
+                        .map(TaskStateEntity::getId).orElse(null));
     }
 
     @Transactional
     public AnswerDto deleteTuskState(Long taskStateId, Optional<Boolean> deleteAll, Long personId) {
         TaskStateEntity taskStateEntity = getTaskStateOrThrowException(taskStateId, personId);
+        eventPublisher.publishEvent(new BoardChangedEvent(taskStateEntity.getBoardId(), personId));
 
         if (deleteAll.isPresent() && deleteAll.get().equals(true)){
-            taskStateRepo.deleteAllByBoardId(taskStateEntity.getBoard().getId());
+            taskStateRepo.deleteAllByBoardId(taskStateEntity.getBoardId());
             return AnswerDto.makeDefault(true);
         }
 
-        Optional<TaskStateEntity> leftValue = taskStateEntity.getPreviousTaskState();
-        Optional<TaskStateEntity> rightValue = taskStateEntity.getNextTaskState();
-
-        if (leftValue.isEmpty() && rightValue.isEmpty()){
-            taskStateRepo.deleteById(taskStateId);
-        } else if (leftValue.isPresent() && rightValue.isPresent()){
-            TaskStateEntity rightTaskState = rightValue.get();
-            TaskStateEntity leftTaskState = leftValue.get();
-
-            leftTaskState.setNextTaskState(rightTaskState);
-            rightTaskState.setPreviousTaskState(leftTaskState);
-
-            taskStateEntity.setNextTaskState(null);
-            taskStateEntity.setPreviousTaskState(null);
-            taskStateRepo.save(leftTaskState);
-            taskStateRepo.save(rightTaskState);
-
-            taskStateRepo.deleteById(taskStateId);
-        }else if(leftValue.isEmpty()){
-            TaskStateEntity rightTaskState = rightValue.get();
-            rightTaskState.setPreviousTaskState(null);
-            taskStateRepo.save(rightTaskState);
-            taskStateRepo.deleteById(taskStateId);
-        }  else {
-            TaskStateEntity leftTaskState =  leftValue.get();
-            leftTaskState.setNextTaskState(null);
-            taskStateRepo.save(leftTaskState);
-            taskStateRepo.deleteById(taskStateId);
-        }
+        taskStateRepo.deleteById(taskStateId);
         return AnswerDto.makeDefault(true);
     }
 
     public TaskStateEntity getTaskStateOrThrowException(Long id, Long personId){
 
-        TaskStateEntity taskStateEntity = taskStateRepo.findById(id)
+        return taskStateRepo.findByIdAndPersonId(id, personId)
                 .orElseThrow(()->{
                     throw new NotFoundException(
                             String.format("No task state with id %d exists", id)
                     );
                 });
-        if (!taskStateEntity.getBoard().getPersonId().equals(personId)) {
-            throw new NotFoundException(
-                    String.format("No task state with id %d exists", id)
-            );
-        }
-        return taskStateEntity;
-    }
-
-    public List<TaskStateEntity> toSort(List<TaskStateEntity> unsortedList){
-        List<TaskStateEntity> sortedList=new ArrayList<>();
-
-        TaskStateEntity firstTaskState = unsortedList
-                .stream()
-                .filter(taskState -> taskState.getPreviousTaskState().isEmpty())
-                .findFirst()
-                .get();
-
-        sortedList.add(firstTaskState);
-        TaskStateEntity currTaskState = firstTaskState.getNextTaskState().orElse(null);
-
-        int i = 0;
-        while (i != unsortedList.size() - 1){
-            if (currTaskState != null){
-                sortedList.add(currTaskState);
-                currTaskState = currTaskState.getNextTaskState().orElse(null);
-                i++;
-            }else break;
-        }
-
-        return sortedList;
     }
 
     @Transactional
@@ -198,78 +180,75 @@ public class TaskStateService {
         }
 
         TaskStateEntity currTaskState = getTaskStateOrThrowException(taskStateId, personId);
-        Optional<TaskStateEntity> previousCurrTaskState = currTaskState.getPreviousTaskState();
-        Optional<TaskStateEntity> nextCurrTaskState = currTaskState.getNextTaskState();
-
-        previousCurrTaskState.ifPresent(taskState -> {
-            if (nextCurrTaskState.isPresent()){
-                taskState.setNextTaskState(nextCurrTaskState.get());
-            }else {
-                taskState.setNextTaskState(null);
-            }
-            taskStateRepo.save(taskState);
-        });
-
-       nextCurrTaskState.ifPresent(taskState -> {
-            if (previousCurrTaskState.isPresent()){
-                taskState.setPreviousTaskState(previousCurrTaskState.get());
-            }else {
-                taskState.setPreviousTaskState(null);
+        if (previousTaskStateId.filter(currTaskState.getId()::equals).isPresent() ||
+                nextTaskStateId.filter(currTaskState.getId()::equals).isPresent()){
+            throw new BadRequestException("Task state can't be placed next to itself");
+        }
+        Long boardId = currTaskState.getBoardId();
+
+        Optional<TaskStateEntity> previousTaskState = previousTaskStateId
+                .map(id -> getTaskStateOrThrowException(id, personId));
+        Optional<TaskStateEntity> nextTaskState = nextTaskStateId
+                .map(id -> getTaskStateOrThrowException(id, personId));
+        previousTaskState.ifPresent(taskState -> checkSameBoard(taskState, boardId));
+        nextTaskState.ifPresent(taskState -> checkSameBoard(taskState, boardId));
+
+        if (previousTaskState.isPresent() && nextTaskState.isPresent()){
+            if (comparePositions(previousTaskState.get(), nextTaskState.get()) >= 0){
+                throw new BadRequestException(String.format("Task state with id %d is not placed before task state with id %d",
+                        previousTaskState.get().getId(), nextTaskState.get().getId()));
             }
-            taskStateRepo.save(taskState);
-        });
-
-
-       Optional<TaskStateEntity> previousTaskState = (previousTaskStateId.isPresent()) ?
-               Optional.ofNullable(getTaskStateOrThrowException(previousTaskStateId.get(), personId)) : Optional.empty();
-
-       Optional<TaskStateEntity> nextTaskState = (nextTaskStateId.isPresent()) ?
-                Optional.ofNullable(getTaskStateOrThrowException(nextTaskStateId.get(), personId)) : Optional.empty();
-
-
-       if (previousTaskState.isEmpty()){
-           nextTaskState.ifPresent(taskState -> {
-               if(!taskState.getBoard().getId().equals(currTaskState.getBoard().getId())){
-                   throw new BadRequestException(String.format("Task state with id %d is from different board", taskState.getId()));
-               }
-               taskState.setPreviousTaskState(currTaskState);
-               currTaskState.setNextTaskState(taskState);
-               taskStateRepo.save(taskState);
-           });
-           currTaskState.setPreviousTaskState(null);
-           taskStateRepo.save(currTaskState);
-       }else if (nextTaskState.isEmpty()){
-           previousTaskState.ifPresent(taskState -> {
-               if(!taskState.getBoard().getId().equals(currTaskState.getBoard().getId())){
-                   throw new BadRequestException(String.format("Task state with id %d is from different board", taskState.getId()));
-               }
-               taskState.setNextTaskState(currTaskState);
-               currTaskState.setPreviousTaskState(taskState);
-               taskStateRepo.save(taskState);
-           });
-           currTaskState.setNextTaskState(null);
-           taskStateRepo.save(currTaskState);
-       }else {
-           if(!previousTaskState.get().getBoard().getId().equals(currTaskState.getBoard().getId())){
-               throw new BadRequestException(String.format("Task state with id %d is from different board",
-                      previousTaskState.get().getId()));
-           }
-           if(!nextTaskState.get().getBoard().getId().equals(currTaskState.getBoard().getId())){
-               throw new BadRequestException(String.format("Task state with id %d is from different board",
-                      nextCurrTaskState.get().getId()));
-           }
-           previousTaskState.get().setNextTaskState(currTaskState);
-           nextTaskState.get().setPreviousTaskState(currTaskState);
-           taskStateRepo.save(previousTaskState.get());
-           taskStateRepo.save(nextTaskState.get());
-
-           currTaskState.setPreviousTaskState(previousTaskState.get());
-           currTaskState.setNextTaskState(nextTaskState.get());
-           taskStateRepo.save(currTaskState);
-       }
-
-       return currTaskState.getBoard().getTaskStates();
+        } else if (previousTaskState.isPresent()){
+            nextTaskState = taskStateRepo.findAllAfter(boardId, previousTaskState.get().getPosition(),
+                            previousTaskState.get().getId(), PageRequest.of(0, 2)).stream()
+                    .filter(taskState -> !taskState.getId().equals(currTaskState.getId()))
+                    .findFirst();
+        } else {
+            previousTaskState = taskStateRepo.findAllBefore(boardId, nextTaskState.get().getPosition(),
+                            nextTaskState.get().getId(), PageRequest.of(0, 2)).stream()
+                    .filter(taskState -> !taskState.getId().equals(currTaskState.getId()))
+                    .findFirst();
+        }
+
+        if (PositionUtil.between(
+                previousTaskState.map(TaskStateEntity::getPosition).orElse(null),
+                nextTaskState.map(TaskStateEntity::getPosition).orElse(null)) == null){
+            // neighbours are adjacent or tied, renumber the board right away and read the new positions back
+            taskStateRebalancer.rebalance(boardId);
+            entityManager.refresh(currTaskState);
+            previousTaskState.ifPresent(entityManager::refresh);
+            nextTaskState.ifPresent(entityManager::refresh);
+        }
+
+        // two moves into the same gap would compute the same position, bumping the neighbours makes one of them fail
+        previousTaskState.ifPresent(taskState -> entityManager.lock(taskState, LockModeType.OPTIMISTIC_FORCE_INCREMENT));
+        nextTaskState.ifPresent(taskState -> entityManager.lock(taskState, LockModeType.OPTIMISTIC_FORCE_INCREMENT));
+
+        Long position = PositionUtil.between(
+                previousTaskState.map(TaskStateEntity::getPosition).orElse(null),
+                nextTaskState.map(TaskStateEntity::getPosition).orElse(null));
+        if (PositionUtil.isCrowded(
+                previousTaskState.map(TaskStateEntity::getPosition).orElse(null),
+                position,
+                nextTaskState.map(TaskStateEntity::getPosition).orElse(null))){
+            eventPublisher.publishEvent(new TaskStateRebalanceEvent(boardId));
+        }
+
+        currTaskState.setPosition(position);
+        taskStateRepo.save(currTaskState);
+        eventPublisher.publishEvent(new BoardChangedEvent(boardId, personId));
+
+        return taskStateRepo.findAllByBoardIdOrderByPositionAscIdAsc(boardId);
     }
 
+    private void checkSameBoard(TaskStateEntity taskState, Long boardId){
+        if (!taskState.getBoardId().equals(boardId)){
+            throw new BadRequestException(String.format("Task state with id %d is from different board", taskState.getId()));
+        }
+    }
 
+    private int comparePositions(TaskStateEntity taskState, TaskStateEntity anotherTaskState){
+        int result = taskState.getPosition().compareTo(anotherTaskState.getPosition());
+        return result != 0 ? result : taskState.getId().compareTo(anotherTaskState.getId());
+    }
 }
@@ -0,0 +1,52 @@
+package com.tasktracker.api.util;
+
+import com.tasktracker.api.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursors for keyset pagination.
+ * <p>
+ * A cursor holds the sort key and the id of the last row of a page, the next page starts right after them.
+ * Clients should treat it as an opaque string, the encoding may change.
+ */
+public final class CursorUtil {
+
+    public static final int MAX_LIMIT = 500;
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String SEPARATOR = ":";
+
+    private CursorUtil() {
+    }
+
+    public static String encode(Long id) {
+        return encode("", id);
+    }
+
+    public static String encode(String key, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((key + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(SEPARATOR);
+            return new Cursor(decoded.substring(0, separator), Long.valueOf(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException exception) {
+            throw new BadRequestException(String.format("Cursor \"%s\" is malformed", cursor));
+        }
+    }
+
+    public static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException(String.format("limit should be between 1 and %d", MAX_LIMIT));
+        }
+    }
+
+    public record Cursor(String key, Long id) {
+    }
+}
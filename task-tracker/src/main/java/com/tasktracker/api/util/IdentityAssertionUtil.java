@@ -0,0 +1,90 @@
+package com.tasktracker.api.util;
+
+import com.tasktracker.api.exceptions.UnauthorizedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Checks the identity assertions the gateway attaches to requests whose token it has already verified.
+ * <p>
+ * An assertion is {@code <person id>:<epoch millis>:<signature>}, the signature being the base64url HMAC-SHA256
+ * of {@code <person id>:<epoch millis>} with {@code task-tracker.identity.secret}, a key shared with the gateway
+ * only. Assertions older than {@code task-tracker.identity.max-age} are rejected. Without the secret
+ * assertions are ignored and every request is authenticated by its token.
+ */
+@Component
+public class IdentityAssertionUtil {
+
+    public static final String IDENTITY_ASSERTION_HEADER = "X-Identity-Assertion";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final long maxAgeMillis;
+    private final ThreadLocal<Mac> mac;
+
+    public IdentityAssertionUtil(@Value("${task-tracker.identity.secret:}") String secret,
+                                 @Value("${task-tracker.identity.max-age:30s}") Duration maxAge) {
+        this.key = secret.isEmpty() ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.maxAgeMillis = maxAge.toMillis();
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return key != null;
+    }
+
+    /**
+     * Returns the person id of a valid assertion.
+     *
+     * @throws UnauthorizedException if the assertion is malformed, forged or stale
+     */
+    public Long verify(String assertion) {
+        int signatureStart = assertion.lastIndexOf(':');
+        int timestampStart = assertion.indexOf(':');
+        if (timestampStart <= 0 || signatureStart == timestampStart) {
+            throw new UnauthorizedException("Identity assertion is malformed");
+        }
+
+        String payload = assertion.substring(0, signatureStart);
+        byte[] signature = assertion.substring(signatureStart + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(signature, signature(payload).getBytes(StandardCharsets.US_ASCII))) {
+            throw new UnauthorizedException("Identity assertion is forged");
+        }
+        try {
+            long age = System.currentTimeMillis() - Long.parseLong(payload.substring(timestampStart + 1));
+            if (Math.abs(age) > maxAgeMillis) {
+                throw new UnauthorizedException("Identity assertion is stale");
+            }
+            return Long.valueOf(payload.substring(0, timestampStart));
+        } catch (NumberFormatException exception) {
+            throw new UnauthorizedException("Identity assertion is malformed");
+        }
+    }
+
+    public String sign(Long personId, long timestamp) {
+        String payload = personId + ":" + timestamp;
+        return payload + ":" + signature(payload);
+    }
+
+    private String signature(String payload) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
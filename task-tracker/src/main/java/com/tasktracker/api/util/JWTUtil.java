@@ -4,35 +4,88 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.Base64;
 import java.util.Date;
 
-
+/**
+ * Verifies the tokens issued by the authorization service.
+ * <p>
+ * Verified tokens are remembered by their SHA-256 digest until they expire, so a client sending the same
+ * token on every request pays for the signature check once. Tokens without an expiration date are not
+ * remembered. Requests forwarded by the gateway may skip the token altogether, see {@link IdentityAssertionUtil}.
+ * Hits and misses are reported as the {@code cache.*} metrics tagged {@code cache=verified-tokens}.
+ */
 @Component
-@RequiredArgsConstructor
 public class JWTUtil {
 
-    @Value("${jwt_secret}")
-    private String secret;
-
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final IdentityAssertionUtil identityAssertionUtil;
 
-    public Long validateTokenAndRetrieveClaim(String token) {
-        JWTVerifier verifier = JWT.require(Algorithm.HMAC256(secret))
+    public JWTUtil(@Value("${jwt_secret}") String secret,
+                   @Value("${task-tracker.jwt.verified-tokens.max-size:10000}") long maxSize,
+                   MeterRegistry meterRegistry,
+                   IdentityAssertionUtil identityAssertionUtil) {
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm)
                 .withSubject("User details")
                 .withIssuer("authorization-service")
                 .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "verified-tokens");
+        this.identityAssertionUtil = identityAssertionUtil;
+    }
+
+    public Long validateTokenAndRetrieveClaim(String token) {
+        String digest = digest(token);
+        VerifiedToken verifiedToken = verifiedTokens.getIfPresent(digest);
+        if (verifiedToken != null) {
+            return verifiedToken.personId();
+        }
 
         DecodedJWT jwt = verifier.verify(token);
-        return jwt.getClaim("id").asLong();
+        Long personId = jwt.getClaim("id").asLong();
+        if (jwt.getExpiresAtAsInstant() != null) {
+            verifiedTokens.put(digest, new VerifiedToken(personId, jwt.getExpiresAtAsInstant()));
+        }
+        return personId;
+    }
+
+    /**
+     * Checks the signature and claims of the token every time, bypassing the verified tokens.
+     */
+    public Long verifyTokenAndRetrieveClaim(String token) {
+        return verifier.verify(token).getClaim("id").asLong();
     }
 
+    /**
+     * Reads the person from the gateway's identity assertion when trusting the gateway is enabled
+     * and the request carries one, otherwise from the token.
+     */
     public Long getPersonId(HttpServletRequest request){
+        String assertion = request.getHeader(IdentityAssertionUtil.IDENTITY_ASSERTION_HEADER);
+        if (assertion != null && identityAssertionUtil.isEnabled()) {
+            return identityAssertionUtil.verify(assertion);
+        }
         String token = request.getHeader("Authorization").substring(7);
         Long personId = this.validateTokenAndRetrieveClaim(token);
         return personId;
@@ -46,7 +99,36 @@ public class JWTUtil {
                 .withIssuedAt(new Date())
                 .withIssuer("authorization-service")
                 .withExpiresAt(expirationDate)
-                .sign(Algorithm.HMAC256(secret));
+                .sign(algorithm);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private record VerifiedToken(Long personId, Instant expiresAt) {
     }
 
+    private static class UntilTokenExpires implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String digest, VerifiedToken token, long currentTime) {
+            return Math.max(0, (token.expiresAt().toEpochMilli() - System.currentTimeMillis()) * 1_000_000);
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
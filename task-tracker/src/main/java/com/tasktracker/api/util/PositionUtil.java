@@ -0,0 +1,46 @@
+package com.tasktracker.api.util;
+
+/**
+ * Sparse integer positions used to order task states inside a board.
+ * <p>
+ * Positions are spread {@link #GAP} apart, so a task state can be moved between two neighbours
+ * by taking the midpoint. Once neighbours get too close, the board has to be renumbered.
+ */
+public final class PositionUtil {
+
+    public static final long GAP = 1024;
+
+    /**
+     * Neighbours closer than this are renumbered in the background, before the gap runs out completely.
+     */
+    public static final long MIN_GAP = 8;
+
+    private PositionUtil() {
+    }
+
+    /**
+     * Returns a position strictly between {@code previousPosition} and {@code nextPosition},
+     * or {@code null} if there is no free position left between them.
+     * A {@code null} bound means the beginning or the end of the list.
+     */
+    public static Long between(Long previousPosition, Long nextPosition) {
+        if (previousPosition == null && nextPosition == null) {
+            return GAP;
+        }
+        if (nextPosition == null) {
+            return previousPosition + GAP;
+        }
+        if (previousPosition == null) {
+            return nextPosition - GAP;
+        }
+        if (nextPosition - previousPosition < 2) {
+            return null;
+        }
+        return previousPosition + (nextPosition - previousPosition) / 2;
+    }
+
+    public static boolean isCrowded(Long previousPosition, Long position, Long nextPosition) {
+        return (previousPosition != null && position - previousPosition < MIN_GAP) ||
+                (nextPosition != null && nextPosition - position < MIN_GAP);
+    }
+}
@@ -0,0 +1,147 @@
+package com.tasktracker.api.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lexicographic ranks used to order tasks inside a task state.
+ * <p>
+ * A rank is a non-empty string over {@code [0-9a-z]} that never ends with {@code '0'},
+ * so there is always room for another rank between any two distinct ranks.
+ * Appending and prepending work on the first {@link #WIDTH} characters, so ranks stay short
+ * for the common "add to the end of a column" case and only grow when cards are squeezed
+ * between two neighbours over and over.
+ */
+public final class RankUtil {
+
+    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = ALPHABET.length();
+    private static final int WIDTH = 6;
+
+    public static final String INITIAL_RANK = "i";
+
+    private RankUtil() {
+    }
+
+    /**
+     * Returns a rank strictly between {@code previousRank} and {@code nextRank}.
+     * A {@code null} bound means the beginning or the end of the list.
+     */
+    public static String between(String previousRank, String nextRank) {
+        if (previousRank == null && nextRank == null) {
+            return INITIAL_RANK;
+        }
+        if (nextRank == null) {
+            return after(previousRank);
+        }
+        if (previousRank == null) {
+            return before(nextRank);
+        }
+        if (previousRank.compareTo(nextRank) >= 0) {
+            throw new IllegalArgumentException(
+                    String.format("Rank \"%s\" should be less than rank \"%s\"", previousRank, nextRank));
+        }
+        return midpoint(previousRank, nextRank);
+    }
+
+    /**
+     * Returns a rank greater than {@code previousRank}, or {@link #INITIAL_RANK} for an empty list.
+     */
+    public static String after(String previousRank) {
+        if (previousRank == null) {
+            return INITIAL_RANK;
+        }
+        for (int i = WIDTH - 1; i >= 0; i--) {
+            int digit = digitAt(previousRank, i);
+            if (digit < BASE - 1) {
+                return prefix(previousRank, i) + ALPHABET.charAt(digit + 1);
+            }
+        }
+        return midpoint(previousRank, null);
+    }
+
+    /**
+     * Returns a rank less than {@code nextRank}, or {@link #INITIAL_RANK} for an empty list.
+     */
+    public static String before(String nextRank) {
+        if (nextRank == null) {
+            return INITIAL_RANK;
+        }
+        for (int i = Math.min(WIDTH, nextRank.length()) - 1; i >= 0; i--) {
+            int digit = digitAt(nextRank, i);
+            if (digit > 1) {
+                return prefix(nextRank, i) + ALPHABET.charAt(digit - 1);
+            }
+        }
+        return midpoint("", nextRank);
+    }
+
+    /**
+     * Returns {@code count} ascending ranks that are all less than {@code nextRank}.
+     * Used to rank a whole column at once, e.g. when converting legacy data.
+     */
+    public static List<String> sequence(String nextRank, int count) {
+        String prefix = nextRank == null ? "" : before(nextRank);
+
+        int width = 1;
+        for (long capacity = BASE; capacity < count; capacity *= BASE) {
+            width++;
+        }
+
+        List<String> ranks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String counter = Long.toString(i, BASE);
+            ranks.add(prefix + "0".repeat(width - counter.length()) + counter + INITIAL_RANK);
+        }
+        return ranks;
+    }
+
+    private static String midpoint(String previousRank, String nextRank) {
+        StringBuilder rank = new StringBuilder();
+        int i = 0;
+        while (true) {
+            int lower = digitAt(previousRank, i);
+            int upper = nextRank == null ? BASE : digitAt(nextRank, i);
+
+            if (lower == upper) {
+                if (i >= previousRank.length() && i >= nextRank.length()) {
+                    throw new IllegalArgumentException(
+                            String.format("There is no rank between \"%s\" and \"%s\"", previousRank, nextRank));
+                }
+                rank.append(ALPHABET.charAt(lower));
+                i++;
+                continue;
+            }
+
+            int middle = (lower + upper) / 2;
+            if (middle > lower) {
+                return rank.append(ALPHABET.charAt(middle)).toString();
+            }
+
+            // the bounds are adjacent digits: keep the lower one and look for room one position deeper,
+            // where the upper bound no longer applies
+            rank.append(ALPHABET.charAt(lower));
+            nextRank = null;
+            i++;
+        }
+    }
+
+    private static String prefix(String rank, int length) {
+        StringBuilder prefix = new StringBuilder(rank.substring(0, Math.min(length, rank.length())));
+        while (prefix.length() < length) {
+            prefix.append(ALPHABET.charAt(0));
+        }
+        return prefix.toString();
+    }
+
+    private static int digitAt(String rank, int index) {
+        if (index >= rank.length()) {
+            return 0;
+        }
+        int digit = ALPHABET.indexOf(rank.charAt(index));
+        if (digit < 0) {
+            throw new IllegalArgumentException(String.format("Rank \"%s\" contains illegal characters", rank));
+        }
+        return digit;
+    }
+}
@@ -0,0 +1,56 @@
+package com.tasktracker.api.util;
+
+import com.tasktracker.api.exceptions.ConflictException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retries operations that lost an optimistic locking race.
+ * <p>
+ * The operation has to start its own transaction, e.g. be a call to a {@code @Transactional} service,
+ * so every attempt runs in a fresh transaction after the failed one was rolled back.
+ */
+@Slf4j
+@Component
+public class RetryUtil {
+
+    @Value("${task-tracker.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${task-tracker.retry.backoff-millis:10}")
+    private long backoffMillis;
+
+    /**
+     * Runs {@code operation} up to {@code task-tracker.retry.max-attempts} times. Between attempts it sleeps
+     * for a random time below an exponentially growing bound, so the competing requests don't collide again.
+     *
+     * @throws ConflictException if every attempt failed
+     */
+    public <T> T retryOnConflict(Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (OptimisticLockingFailureException exception) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Giving up after {} conflicting attempts", attempt);
+                    throw new ConflictException("The board was changed concurrently, please retry.");
+                }
+                sleep(ThreadLocalRandom.current().nextLong(0, (backoffMillis << (attempt - 1)) + 1));
+            }
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("The board was changed concurrently, please retry.");
+        }
+    }
+}
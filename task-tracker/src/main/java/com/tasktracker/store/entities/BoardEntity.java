@@ -7,7 +7,8 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name ="board")
+@Table(name ="board",
+        indexes = @Index(name = "idx_board_person_id_id", columnList = "person_id, id"))
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
@@ -15,7 +16,8 @@ import java.util.Objects;
 @Builder
 public class BoardEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "board_seq")
+    @SequenceGenerator(name = "board_seq", sequenceName = "board_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -25,7 +27,18 @@ public class BoardEntity {
     @Column(name = "person_id")
     private Long personId;
 
+    /**
+     * Bumped by every change of the board's task states and tasks, used as their ETag.
+     * {@code null} for boards created before the column existed, read as {@code 0}.
+     * Only changed by {@link com.tasktracker.store.repositories.BoardRepo#incrementContentVersion},
+     * saving a loaded board never writes back a stale version.
+     */
+    @Column(name = "content_version", updatable = false)
+    @Builder.Default
+    private Long contentVersion = 0L;
+
     @OneToMany(mappedBy = "board", cascade = CascadeType.REMOVE)
+    @OrderBy("position ASC, id ASC")
     private List<TaskStateEntity> taskStates;
 
 
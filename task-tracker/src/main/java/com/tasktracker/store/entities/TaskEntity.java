@@ -2,11 +2,14 @@ package com.tasktracker.store.entities;
 
 import jakarta.persistence.*;
 import lombok.*;
-
-import java.util.Optional;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name ="task")
+@Table(name ="task",
+        uniqueConstraints = @UniqueConstraint(name = "uk_task_task_state_id_name", columnNames = {"task_state_id", "name"}),
+        indexes = {
+                @Index(name = "idx_task_task_state_id_rank_id", columnList = "task_state_id, rank, id"),
+                @Index(name = "idx_task_id_person_id", columnList = "id, person_id")})
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -15,7 +18,8 @@ import java.util.Optional;
 public class TaskEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -25,21 +29,31 @@ public class TaskEntity {
     @Column(name = "description")
     private String description;
 
-    @ManyToOne
-    @JoinColumn(name = "task_state_id" ,referencedColumnName = "id")
-    private TaskStateEntity taskState;
+    @Column(name = "rank")
+    private String rank;
 
-    @OneToOne
-    private TaskEntity previousTask;
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    private Long version;
 
-    @OneToOne
-    private TaskEntity nextTask;
+    /**
+     * Copy of the board owner, so ownership is checked without loading the task state and board.
+     */
+    @Column(name = "person_id")
+    private Long personId;
 
-    public Optional<TaskEntity> getPreviousTask(){
-        return Optional.ofNullable(previousTask);
-    }
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "task_state_id" ,referencedColumnName = "id")
+    private TaskStateEntity taskState;
+
+    @Column(name = "task_state_id", insertable = false, updatable = false)
+    private Long taskStateId;
 
-    public Optional<TaskEntity> getNextTask(){
-        return Optional.ofNullable(nextTask);
+    /**
+     * Reads the foreign key without initializing the task state proxy.
+     */
+    public Long getTaskStateId() {
+        return taskState != null ? taskState.getId() : taskStateId;
     }
 }
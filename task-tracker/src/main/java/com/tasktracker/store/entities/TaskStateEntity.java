@@ -2,14 +2,18 @@ package com.tasktracker.store.entities;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 
 @Entity
-@Table(name ="task_state")
+@Table(name ="task_state",
+        uniqueConstraints = @UniqueConstraint(name = "uk_task_state_board_id_name", columnNames = {"board_id", "name"}),
+        indexes = {
+                @Index(name = "idx_task_state_board_id_position", columnList = "board_id, position"),
+                @Index(name = "idx_task_state_id_person_id", columnList = "id, person_id")})
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
@@ -17,32 +21,45 @@ import java.util.Optional;
 @Builder
 public class TaskStateEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_state_seq")
+    @SequenceGenerator(name = "task_state_seq", sequenceName = "task_state_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
     @Column(name = "name")
     private String name;
 
-    @OneToOne
-    private TaskStateEntity previousTaskState;
+    @Column(name = "position")
+    private Long position;
 
-    @OneToOne
-    private TaskStateEntity nextTaskState;
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    private Long version;
 
-    @ManyToOne
+    /**
+     * Copy of the board owner, so ownership is checked without loading the board.
+     */
+    @Column(name = "person_id")
+    private Long personId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "board_id", referencedColumnName = "id")
     private BoardEntity board;
 
+    @Column(name = "board_id", insertable = false, updatable = false)
+    private Long boardId;
+
     @OneToMany(mappedBy = "taskState", cascade = CascadeType.REMOVE)
+    @OrderBy("rank ASC, id ASC")
     @Builder.Default
     private List<TaskEntity> tasks = new ArrayList<>();
 
-    public Optional<TaskStateEntity> getPreviousTaskState(){
-        return Optional.ofNullable(previousTaskState);
-    }
-    public Optional<TaskStateEntity> getNextTaskState(){
-        return Optional.ofNullable(nextTaskState);
+    /**
+     * Reads the foreign key without initializing the board proxy.
+     */
+    public Long getBoardId() {
+        return board != null ? board.getId() : boardId;
     }
 
     @Override
@@ -50,7 +67,7 @@ public class TaskStateEntity {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         TaskStateEntity that = (TaskStateEntity) o;
-        return id.equals(that.id) && Objects.equals(name, that.name) && Objects.equals(previousTaskState, that.previousTaskState) && Objects.equals(nextTaskState, that.nextTaskState) && board.equals(that.board) && Objects.equals(tasks, that.tasks);
+        return id.equals(that.id) && Objects.equals(name, that.name) && Objects.equals(position, that.position) && board.equals(that.board) && Objects.equals(tasks, that.tasks);
     }
 
 }
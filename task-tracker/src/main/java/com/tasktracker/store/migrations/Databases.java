@@ -0,0 +1,20 @@
+package com.tasktracker.store.migrations;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The schema changes of the migrations are written for PostgreSQL, other databases get their schema
+ * from the entities, e.g. H2 in tests. Queries written for PostgreSQL only are guarded the same way.
+ */
+public final class Databases {
+
+    private Databases() {
+    }
+
+    public static boolean isPostgreSql(JdbcTemplate jdbcTemplate) {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(database);
+    }
+}
@@ -0,0 +1,55 @@
+package com.tasktracker.store.migrations;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Creates the id sequences on PostgreSQL and moves them past the ids that were generated by identity columns before.
+ * <p>
+ * Runs before the application starts serving requests. Sequences are only created when missing
+ * and only moved forward, so running it again is harmless.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdSequenceMigration {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "board_seq", "board",
+            "task_state_seq", "task_state",
+            "task_seq", "task");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${task-tracker.migrations.id-sequences.enabled:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        if (!Databases.isPostgreSql(jdbcTemplate)) {
+            return;
+        }
+
+        SEQUENCES.forEach((sequence, table) -> {
+            // the increment has to match the allocation size of the entities
+            jdbcTemplate.execute(String.format("create sequence if not exists %s increment by %d",
+                    sequence, ALLOCATION_SIZE));
+            Long value = jdbcTemplate.queryForObject(String.format(
+                    "select setval('%1$s', greatest((select coalesce(max(id), 0) from %2$s) + %3$d, " +
+                            "(select last_value from %1$s)))",
+                    sequence, table, ALLOCATION_SIZE), Long.class);
+            log.info("Sequence {} is at {}", sequence, value);
+        });
+    }
+}
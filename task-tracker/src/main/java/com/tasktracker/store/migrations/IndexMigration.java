@@ -0,0 +1,53 @@
+package com.tasktracker.store.migrations;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the indexes of the PostgreSQL schema, including the expression and full-text indexes
+ * that can't be declared on the entities.
+ * <p>
+ * Runs before the application starts serving requests, every statement is a no-op when the index already exists.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndexMigration {
+
+    private static final List<String> POSTGRES_STATEMENTS = List.of(
+            // serves keyset pages of a person's boards
+            "create index if not exists idx_board_person_id_id on board (person_id, id)",
+            // text_pattern_ops lets "lower(name) like 'prefix%'" use the index whatever the collation is
+            "create index if not exists idx_board_person_id_lower_name on board (person_id, lower(name) text_pattern_ops)",
+            // kept up to date by the database, the entity doesn't map it
+            "alter table task add column if not exists search_vector tsvector generated always as " +
+                    "(to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, ''))) stored",
+            // btree_gin lets the search index filter by owner as well, searches only ever cover one person's tasks
+            "create extension if not exists btree_gin",
+            "create index if not exists idx_task_person_id_search_vector on task using gin (person_id, search_vector)",
+            "drop index if exists idx_task_search_vector");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // tests create the schema while the entity manager factory is built
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${task-tracker.migrations.indexes.enabled:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void migrate() {
+        if (!enabled || !Databases.isPostgreSql(jdbcTemplate)) {
+            return;
+        }
+        POSTGRES_STATEMENTS.forEach(jdbcTemplate::execute);
+        log.info("PostgreSQL indexes are in place");
+    }
+}
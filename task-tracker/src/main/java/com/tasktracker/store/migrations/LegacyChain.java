@@ -0,0 +1,42 @@
+package com.tasktracker.store.migrations;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Restores the order of rows linked by the legacy previous/next pointers.
+ */
+final class LegacyChain {
+
+    private LegacyChain() {
+    }
+
+    /**
+     * Walks every chain from its head. Rows a broken chain doesn't reach must not be lost,
+     * they go to the end in creation order.
+     */
+    static <T> List<T> order(Collection<T> items,
+                             Function<T, Long> id,
+                             Function<T, Long> previousId,
+                             Function<T, Long> nextId) {
+        Map<Long, T> byId = items.stream()
+                .collect(Collectors.toMap(id, item -> item, (a, b) -> a, TreeMap::new));
+
+        List<T> ordered = new ArrayList<>(byId.size());
+        Set<Long> visited = new HashSet<>();
+        List<T> heads = byId.values().stream()
+                .filter(item -> previousId.apply(item) == null || !byId.containsKey(previousId.apply(item)))
+                .collect(Collectors.toList());
+        for (T head : heads) {
+            for (T item = head; item != null && visited.add(id.apply(item));
+                 item = nextId.apply(item) == null ? null : byId.get(nextId.apply(item))) {
+                ordered.add(item);
+            }
+        }
+        byId.values().stream()
+                .filter(item -> !visited.contains(id.apply(item)))
+                .forEach(ordered::add);
+        return ordered;
+    }
+}
@@ -0,0 +1,61 @@
+package com.tasktracker.store.migrations;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Adds the {@code person_id} owner column of task states and tasks and fills it for rows created before it existed.
+ * <p>
+ * Runs before the application starts serving requests, since ownership checks read this column only.
+ * The column and its indexes are only added on PostgreSQL when missing, and rows that already have an owner
+ * are not touched, so running it again is harmless.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PersonIdMigration {
+
+    private static final List<String> POSTGRES_COLUMNS = List.of(
+            "alter table task_state add column if not exists person_id bigint",
+            "alter table task add column if not exists person_id bigint");
+
+    // let ownership checks by id be answered from the index
+    private static final List<String> POSTGRES_INDEXES = List.of(
+            "create index if not exists idx_task_state_id_person_id on task_state (id, person_id)",
+            "create index if not exists idx_task_id_person_id on task (id, person_id)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${task-tracker.migrations.person-id.enabled:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        boolean postgres = Databases.isPostgreSql(jdbcTemplate);
+        if (postgres) {
+            POSTGRES_COLUMNS.forEach(jdbcTemplate::execute);
+        }
+
+        int taskStates = jdbcTemplate.update(
+                "update task_state set person_id = (select b.person_id from board b where b.id = task_state.board_id) " +
+                        "where person_id is null");
+        int tasks = jdbcTemplate.update(
+                "update task set person_id = (select ts.person_id from task_state ts where ts.id = task.task_state_id) " +
+                        "where person_id is null");
+        if (taskStates > 0 || tasks > 0) {
+            log.info("Person id migration: {} task states and {} tasks got their owner", taskStates, tasks);
+        }
+        if (postgres) {
+            POSTGRES_INDEXES.forEach(jdbcTemplate::execute);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.tasktracker.store.migrations;
+
+import com.tasktracker.api.util.RankUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Converts tasks ordered by the legacy {@code previous_task_id}/{@code next_task_id} chain into rank ordering.
+ * <p>
+ * Task states are processed in batches of {@code task-tracker.migrations.task-rank.batch-size},
+ * one transaction per batch, so the migration can be interrupted and resumed at any time:
+ * only tasks that don't have a rank yet are touched. The legacy pointers are cleared on the way,
+ * so they no longer hold foreign keys on deleted tasks.
+ * <p>
+ * Runs before the application starts serving requests, since tasks are only ordered by rank,
+ * and adds the {@code rank} column and its index on PostgreSQL first.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskRankMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${task-tracker.migrations.task-rank.enabled:true}")
+    private boolean enabled;
+
+    @Value("${task-tracker.migrations.task-rank.batch-size:100}")
+    private int batchSize;
+
+    @PostConstruct
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        if (Databases.isPostgreSql(jdbcTemplate)) {
+            jdbcTemplate.execute("alter table task add column if not exists rank varchar(255)");
+            // serves the last task of a task state and keyset pages of tasks
+            jdbcTemplate.execute(
+                    "create index if not exists idx_task_task_state_id_rank_id on task (task_state_id, rank, id)");
+        }
+
+        long lastTaskStateId = 0;
+        int migratedTasks = 0;
+        while (true) {
+            List<Long> taskStateIds = jdbcTemplate.queryForList(
+                    "select distinct task_state_id from task " +
+                            "where rank is null and task_state_id > ? order by task_state_id limit ?",
+                    Long.class, lastTaskStateId, batchSize);
+            if (taskStateIds.isEmpty()) {
+                break;
+            }
+
+            migratedTasks += transactionTemplate.execute(status -> migrateTaskStates(taskStateIds));
+            lastTaskStateId = taskStateIds.get(taskStateIds.size() - 1);
+            log.info("Task rank migration: {} tasks ranked, last task state id {}", migratedTasks, lastTaskStateId);
+        }
+    }
+
+    private int migrateTaskStates(List<Long> taskStateIds) {
+        String placeholders = String.join(",", Collections.nCopies(taskStateIds.size(), "?"));
+        List<LegacyTask> tasks = jdbcTemplate.query(
+                "select id, task_state_id, rank, previous_task_id, next_task_id from task " +
+                        "where task_state_id in (" + placeholders + ")",
+                (rs, rowNum) -> new LegacyTask(
+                        rs.getLong("id"),
+                        rs.getLong("task_state_id"),
+                        rs.getString("rank"),
+                        rs.getObject("previous_task_id", Long.class),
+                        rs.getObject("next_task_id", Long.class)),
+                taskStateIds.toArray());
+
+        List<Object[]> updates = new ArrayList<>();
+        tasks.stream()
+                .collect(Collectors.groupingBy(LegacyTask::taskStateId))
+                .values()
+                .forEach(taskStateTasks -> rankTaskState(taskStateTasks, updates));
+
+        jdbcTemplate.batchUpdate(
+                "update task set rank = ?, previous_task_id = null, next_task_id = null where id = ?",
+                updates);
+        return updates.size();
+    }
+
+    /**
+     * Orders unranked tasks by walking the chain and places them before the tasks
+     * that were already ranked, since those were created after the chain.
+     */
+    private void rankTaskState(List<LegacyTask> tasks, List<Object[]> updates) {
+        String firstRank = tasks.stream()
+                .map(LegacyTask::rank)
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+
+        List<LegacyTask> ordered = LegacyChain.order(
+                tasks.stream().filter(task -> task.rank() == null).collect(Collectors.toList()),
+                LegacyTask::id, LegacyTask::previousTaskId, LegacyTask::nextTaskId);
+
+        List<String> ranks = RankUtil.sequence(firstRank, ordered.size());
+        for (int i = 0; i < ordered.size(); i++) {
+            updates.add(new Object[]{ranks.get(i), ordered.get(i).id()});
+        }
+    }
+
+    private record LegacyTask(Long id, Long taskStateId, String rank, Long previousTaskId, Long nextTaskId) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.tasktracker.store.migrations;
+
+import com.tasktracker.api.util.PositionUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Converts task states ordered by the legacy {@code previous_task_state_id}/{@code next_task_state_id}
+ * chain into sparse positions.
+ * <p>
+ * Boards are processed in batches of {@code task-tracker.migrations.task-state-position.batch-size},
+ * one transaction per batch, only task states without a position are touched.
+ * <p>
+ * Runs before the application starts serving requests, since task states are only ordered by position,
+ * and adds the {@code position} column and its index on PostgreSQL first.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskStatePositionMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${task-tracker.migrations.task-state-position.enabled:true}")
+    private boolean enabled;
+
+    @Value("${task-tracker.migrations.task-state-position.batch-size:100}")
+    private int batchSize;
+
+    @PostConstruct
+    public void migrate() {
+        if (!enabled) {
+            return;
+        }
+        if (Databases.isPostgreSql(jdbcTemplate)) {
+            jdbcTemplate.execute("alter table task_state add column if not exists position bigint");
+            // serves the last task state of a board
+            jdbcTemplate.execute(
+                    "create index if not exists idx_task_state_board_id_position on task_state (board_id, position)");
+        }
+
+        long lastBoardId = 0;
+        int migratedTaskStates = 0;
+        while (true) {
+            List<Long> boardIds = jdbcTemplate.queryForList(
+                    "select distinct board_id from task_state " +
+                            "where position is null and board_id > ? order by board_id limit ?",
+                    Long.class, lastBoardId, batchSize);
+            if (boardIds.isEmpty()) {
+                break;
+            }
+
+            migratedTaskStates += transactionTemplate.execute(status -> migrateBoards(boardIds));
+            lastBoardId = boardIds.get(boardIds.size() - 1);
+            log.info("Task state position migration: {} task states positioned, last board id {}",
+                    migratedTaskStates, lastBoardId);
+        }
+    }
+
+    private int migrateBoards(List<Long> boardIds) {
+        String placeholders = String.join(",", Collections.nCopies(boardIds.size(), "?"));
+        List<LegacyTaskState> taskStates = jdbcTemplate.query(
+                "select id, board_id, position, previous_task_state_id, next_task_state_id from task_state " +
+                        "where board_id in (" + placeholders + ")",
+                (rs, rowNum) -> new LegacyTaskState(
+                        rs.getLong("id"),
+                        rs.getLong("board_id"),
+                        rs.getObject("position", Long.class),
+                        rs.getObject("previous_task_state_id", Long.class),
+                        rs.getObject("next_task_state_id", Long.class)),
+                boardIds.toArray());
+
+        List<Object[]> updates = new ArrayList<>();
+        taskStates.stream()
+                .collect(Collectors.groupingBy(LegacyTaskState::boardId))
+                .values()
+                .forEach(boardTaskStates -> positionBoard(boardTaskStates, updates));
+
+        jdbcTemplate.batchUpdate(
+                "update task_state set position = ?, previous_task_state_id = null, next_task_state_id = null " +
+                        "where id = ?",
+                updates);
+        return updates.size();
+    }
+
+    /**
+     * Places task states of the legacy chain before the ones that already have a position,
+     * since those were created after the chain.
+     */
+    private void positionBoard(List<LegacyTaskState> taskStates, List<Object[]> updates) {
+        List<LegacyTaskState> ordered = LegacyChain.order(
+                taskStates.stream().filter(taskState -> taskState.position() == null).collect(Collectors.toList()),
+                LegacyTaskState::id, LegacyTaskState::previousTaskStateId, LegacyTaskState::nextTaskStateId);
+
+        long firstPosition = taskStates.stream()
+                .map(LegacyTaskState::position)
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse((ordered.size() + 1) * PositionUtil.GAP);
+
+        for (int i = 0; i < ordered.size(); i++) {
+            long position = firstPosition - (ordered.size() - i) * PositionUtil.GAP;
+            updates.add(new Object[]{position, ordered.get(i).id()});
+        }
+    }
+
+    private record LegacyTaskState(Long id, Long boardId, Long position,
+                                   Long previousTaskStateId, Long nextTaskStateId) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.tasktracker.store.migrations;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Adds the unique name constraints of task states and tasks to the PostgreSQL schema.
+ * <p>
+ * Names repeated before the constraints existed are made unique first: every row but the oldest one
+ * of a name gets its id appended, e.g. {@code "todo (42)"}. If that still leaves a duplicate, creating the
+ * constraint fails and the application doesn't start. Runs before the application starts serving requests,
+ * constraints that already exist are left alone.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UniqueNameMigration {
+
+    private static final List<UniqueName> UNIQUE_NAMES = List.of(
+            new UniqueName("task_state", "board_id", "uk_task_state_board_id_name"),
+            new UniqueName("task", "task_state_id", "uk_task_task_state_id_name"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${task-tracker.migrations.unique-names.enabled:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void migrate() {
+        if (!enabled || !Databases.isPostgreSql(jdbcTemplate)) {
+            return;
+        }
+
+        UNIQUE_NAMES.forEach(uniqueName -> {
+            Integer constraints = jdbcTemplate.queryForObject(
+                    "select count(*) from pg_constraint where conname = ?", Integer.class, uniqueName.constraint());
+            if (constraints != null && constraints > 0) {
+                return;
+            }
+            int renamed = jdbcTemplate.update(String.format(
+                    "update %1$s set name = name || ' (' || id || ')' where id in (" +
+                            "select id from (select id, row_number() over (partition by %2$s, name order by id) as n " +
+                            "from %1$s) as named where n > 1)",
+                    uniqueName.table(), uniqueName.parentColumn()));
+            if (renamed > 0) {
+                log.warn("Unique name migration: {} rows of {} were renamed", renamed, uniqueName.table());
+            }
+            jdbcTemplate.execute(String.format("alter table %s add constraint %s unique (%s, name)",
+                    uniqueName.table(), uniqueName.constraint(), uniqueName.parentColumn()));
+            log.info("Constraint {} is in place", uniqueName.constraint());
+        });
+    }
+
+    private record UniqueName(String table, String parentColumn, String constraint) {
+    }
+}
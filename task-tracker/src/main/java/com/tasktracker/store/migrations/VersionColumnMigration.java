@@ -0,0 +1,42 @@
+package com.tasktracker.store.migrations;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Adds the version columns to the PostgreSQL schema before the application starts serving requests.
+ * <p>
+ * Existing boards keep a {@code null} content version, which is read as {@code 0}, existing task states
+ * and tasks start at version {@code 0}.
+ * Every statement is a no-op when the column already exists.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VersionColumnMigration {
+
+    private static final List<String> POSTGRES_STATEMENTS = List.of(
+            "alter table board add column if not exists content_version bigint",
+            "alter table task_state add column if not exists version bigint not null default 0",
+            "alter table task add column if not exists version bigint not null default 0");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${task-tracker.migrations.version-columns.enabled:true}")
+    private boolean enabled;
+
+    @PostConstruct
+    public void migrate() {
+        if (!enabled || !Databases.isPostgreSql(jdbcTemplate)) {
+            return;
+        }
+        POSTGRES_STATEMENTS.forEach(jdbcTemplate::execute);
+        log.info("Version columns are in place");
+    }
+}
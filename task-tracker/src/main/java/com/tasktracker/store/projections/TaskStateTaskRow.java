@@ -0,0 +1,18 @@
+package com.tasktracker.store.projections;
+
+/**
+ * One row of a board snapshot: a task state joined with one of its tasks.
+ * Task columns are {@code null} for task states without tasks.
+ */
+public interface TaskStateTaskRow {
+
+    Long getTaskStateId();
+
+    String getTaskStateName();
+
+    Long getTaskId();
+
+    String getTaskName();
+
+    String getTaskDescription();
+}
@@ -1,7 +1,13 @@
 package com.tasktracker.store.repositories;
 
 import com.tasktracker.store.entities.BoardEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,11 +17,41 @@ import java.util.stream.Stream;
 @Repository
 public interface BoardRepo extends JpaRepository<BoardEntity, Long> {
     Optional<BoardEntity> findByNameAndPersonId(String name, Long personId);
-    List<BoardEntity> findAllByNameStartingWithIgnoreCaseAndPersonId(String name, Long personId);
+
+    /**
+     * Boards whose lower-cased name matches {@code pattern}, served by the {@code (person_id, lower(name))}
+     * index on PostgreSQL, see {@link com.tasktracker.store.migrations.IndexMigration}.
+     */
+    @Query("select b from BoardEntity b where b.personId = :personId and lower(b.name) like :pattern escape '\\'")
+    List<BoardEntity> findAllByPersonIdAndLowerNameLike(@Param("personId") Long personId,
+                                                        @Param("pattern") String pattern);
 
     List<BoardEntity> findAllByPersonId(Long personId);
 
+    List<BoardEntity> findAllByPersonIdAndIdGreaterThanOrderByIdAsc(Long personId, Long id, Pageable pageable);
+
+    @Query("select b from BoardEntity b " +
+            "where b.personId = :personId and lower(b.name) like :pattern escape '\\' and b.id > :id " +
+            "order by b.id")
+    List<BoardEntity> findAllByPersonIdAndLowerNameLikeAfter(@Param("personId") Long personId,
+                                                             @Param("pattern") String pattern,
+                                                             @Param("id") Long id,
+                                                             Pageable pageable);
+
     Optional<BoardEntity> findByPersonIdAndId(Long personId, Long boardId);
 
+    /**
+     * Locks the board row until the transaction ends, so task states appended to it are positioned one after another.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<BoardEntity> findLockedByPersonIdAndId(Long personId, Long boardId);
+
+    @Query("select coalesce(b.contentVersion, 0) from BoardEntity b where b.id = :boardId and b.personId = :personId")
+    Optional<Long> findContentVersion(@Param("boardId") Long boardId, @Param("personId") Long personId);
+
+    @Modifying
+    @Query("update BoardEntity b set b.contentVersion = coalesce(b.contentVersion, 0) + 1 where b.id = :boardId")
+    int incrementContentVersion(@Param("boardId") Long boardId);
+
     void deleteByIdAndPersonId(Long boardId, Long personId);
 }
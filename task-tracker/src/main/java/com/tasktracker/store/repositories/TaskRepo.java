@@ -1,12 +1,64 @@
 package com.tasktracker.store.repositories;
 
 import com.tasktracker.store.entities.TaskEntity;
-import com.tasktracker.store.entities.TaskStateEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface TaskRepo extends JpaRepository<TaskEntity, Long> {
+
+    /**
+     * Fetches the task state together with the task, callers need its board id.
+     */
+    @EntityGraph(attributePaths = "taskState")
+    Optional<TaskEntity> findByIdAndPersonId(Long id, Long personId);
+
+    Optional<TaskEntity> findFirstByTaskStateIdOrderByRankDescIdDesc(Long taskStateId);
+
+    List<TaskEntity> findAllByTaskStateIdOrderByRankAscIdAsc(Long taskStateId, Pageable pageable);
+
+    /**
+     * Keyset page: the tasks right after the task with the given rank and id.
+     */
+    @Query("select t from TaskEntity t " +
+            "where t.taskState.id = :taskStateId and (t.rank > :rank or (t.rank = :rank and t.id > :id)) " +
+            "order by t.rank, t.id")
+    List<TaskEntity> findAllAfter(@Param("taskStateId") Long taskStateId,
+                                  @Param("rank") String rank,
+                                  @Param("id") Long id,
+                                  Pageable pageable);
+
+    /**
+     * The tasks right before the task with the given rank and id, closest first.
+     */
+    @Query("select t from TaskEntity t " +
+            "where t.taskState.id = :taskStateId and (t.rank < :rank or (t.rank = :rank and t.id < :id)) " +
+            "order by t.rank desc, t.id desc")
+    List<TaskEntity> findAllBefore(@Param("taskStateId") Long taskStateId,
+                                   @Param("rank") String rank,
+                                   @Param("id") Long id,
+                                   Pageable pageable);
+
+    /**
+     * Streams the tasks of a board in board order. Has to be consumed inside a transaction,
+     * rows are fetched from the database cursor {@code 500} at a time.
+     */
+    @Query("select t from TaskEntity t join t.taskState ts " +
+            "where ts.board.id = :boardId " +
+            "order by ts.position, ts.id, t.rank, t.id")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<TaskEntity> streamAllByBoardId(@Param("boardId") Long boardId);
 }
@@ -1,7 +1,14 @@
 package com.tasktracker.store.repositories;
 
 import com.tasktracker.store.entities.TaskStateEntity;
+import com.tasktracker.store.projections.TaskStateTaskRow;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,7 +18,68 @@ import java.util.Optional;
 @Repository
 public interface TaskStateRepo extends JpaRepository<TaskStateEntity, Long> {
 
+    Optional<TaskStateEntity> findByIdAndPersonId(Long id, Long personId);
+
+    /**
+     * Locks the task state row until the transaction ends, so tasks appended to it are ranked one after another.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<TaskStateEntity> findLockedByIdAndPersonId(Long id, Long personId);
+
+    boolean existsByIdAndPersonId(Long id, Long personId);
+
     Optional<TaskStateEntity> findTaskStateEntityByBoardIdAndNameIgnoreCase(Long boardId, String name);
     void deleteAllByBoardId(Long boardId);
 
+    List<TaskStateEntity> findAllByBoardIdOrderByPositionAscIdAsc(Long boardId);
+
+    Optional<TaskStateEntity> findFirstByBoardIdOrderByPositionDescIdDesc(Long boardId);
+
+    Optional<TaskStateEntity> findFirstByBoardIdAndPositionGreaterThanAndIdNotOrderByPositionAscIdAsc(Long boardId, Long position, Long id);
+
+    Optional<TaskStateEntity> findFirstByBoardIdAndPositionLessThanAndIdNotOrderByPositionDescIdDesc(Long boardId, Long position, Long id);
+
+    /**
+     * The task states right after the task state with the given position and id.
+     */
+    @Query("select ts from TaskStateEntity ts " +
+            "where ts.board.id = :boardId and (ts.position > :position or (ts.position = :position and ts.id > :id)) " +
+            "order by ts.position, ts.id")
+    List<TaskStateEntity> findAllAfter(@Param("boardId") Long boardId,
+                                       @Param("position") Long position,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
+
+    /**
+     * The task states right before the task state with the given position and id, closest first.
+     */
+    @Query("select ts from TaskStateEntity ts " +
+            "where ts.board.id = :boardId and (ts.position < :position or (ts.position = :position and ts.id < :id)) " +
+            "order by ts.position desc, ts.id desc")
+    List<TaskStateEntity> findAllBefore(@Param("boardId") Long boardId,
+                                        @Param("position") Long position,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+
+    /**
+     * Renumbers the task states of the board {@code gap} apart in their current order, in one statement.
+     * Their versions are bumped, so a move computed from the old positions fails instead of landing out of order.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "update task_state ts set position = (select r.rn from " +
+            "(select id, row_number() over (order by position, id) as rn from task_state where board_id = :boardId) r " +
+            "where r.id = ts.id) * :gap, version = version + 1 " +
+            "where ts.board_id = :boardId", nativeQuery = true)
+    int renumberPositions(@Param("boardId") Long boardId, @Param("gap") long gap);
+
+    @Query("select ts.id as taskStateId, ts.name as taskStateName, " +
+            "t.id as taskId, t.name as taskName, t.description as taskDescription " +
+            "from TaskStateEntity ts left join ts.tasks t " +
+            "where ts.board.id = :boardId " +
+            "order by ts.position, ts.id, t.rank, t.id")
+    List<TaskStateTaskRow> findBoardSnapshot(@Param("boardId") Long boardId);
+
+    @Query("select coalesce(b.contentVersion, 0) from TaskStateEntity ts join ts.board b " +
+            "where ts.id = :taskStateId and b.personId = :personId")
+    Optional<Long> findBoardContentVersion(@Param("taskStateId") Long taskStateId, @Param("personId") Long personId);
 }
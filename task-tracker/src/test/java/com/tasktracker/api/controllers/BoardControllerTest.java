@@ -4,6 +4,9 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tasktracker.api.dto.AnswerDto;
 import com.tasktracker.api.dto.BoardDto;
+import com.tasktracker.api.dto.BoardImportDto;
+import com.tasktracker.api.dto.TaskStateDto;
+import com.tasktracker.api.services.BoardSnapshotCache;
 import com.tasktracker.api.util.JWTUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,6 +14,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -24,6 +28,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -34,12 +39,15 @@ class BoardControllerTest {
     private WebApplicationContext wac;
     @Autowired
     private JWTUtil jwtUtil;
+    @Autowired
+    private BoardSnapshotCache boardSnapshotCache;
     private MockMvc mvc;
 
 
     @BeforeEach
     public void setup(){
         mvc = MockMvcBuilders.webAppContextSetup(wac).build();
+        boardSnapshotCache.invalidateAll();
     }
 
     @Test
@@ -76,6 +84,31 @@ class BoardControllerTest {
         assertTrue(resultList.size() != 0);
     }
 
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/board-data.sql"})
+    void shouldFetchBoardsPageByPage() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        MvcResult firstMvcResult = mvc.perform(MockMvcRequestBuilders
+                .get("/api/boards?limit=1")
+                .header("Authorization", "Bearer " + token)).andReturn();
+        String cursor = firstMvcResult.getResponse().getHeader("X-Next-Cursor");
+        MvcResult secondMvcResult = mvc.perform(MockMvcRequestBuilders
+                .get(String.format("/api/boards?limit=1&cursor=%s", cursor))
+                .header("Authorization", "Bearer " + token)).andReturn();
+        List<BoardDto> firstPage = objectMapper.readValue(firstMvcResult.getResponse().getContentAsString(),
+                new TypeReference<List<BoardDto>>() {});
+        List<BoardDto> secondPage = objectMapper.readValue(secondMvcResult.getResponse().getContentAsString(),
+                new TypeReference<List<BoardDto>>() {});
+
+        assertEquals(200, firstMvcResult.getResponse().getStatus());
+        assertEquals(Long.valueOf(1l), firstPage.get(0).getId());
+        assertEquals(1, secondPage.size());
+        assertEquals(Long.valueOf(2l), secondPage.get(0).getId());
+        assertNull(secondMvcResult.getResponse().getHeader("X-Next-Cursor"));
+    }
+
     @Test
     @Sql({"classpath:empty/reset.sql", "classpath:init/board-data.sql"})
     void shouldUpdateBoard() throws Exception {
@@ -138,4 +171,128 @@ class BoardControllerTest {
         assertEquals(200 , mvcResult.getResponse().getStatus());
         assertTrue(answerDto.isAnswer());
     }
-}
\ No newline at end of file
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/board-data.sql"})
+    void shouldImportBoard() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String token = jwtUtil.generateToken(1l);
+        String document = "{\"taskStates\": [" +
+                "{\"name\": \"todo\", \"tasks\": [{\"name\": \"first\", \"description\": \"d\"}, {\"name\": \"second\"}]}," +
+                "{\"name\": \"done\"}]}";
+
+        RequestBuilder importRequest = MockMvcRequestBuilders
+                .post("/api/boards/1/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(document)
+                .header("Authorization", "Bearer " + token);
+        MvcResult importMvcResult = mvc.perform(importRequest).andReturn();
+        RequestBuilder getTaskStatesRequest = MockMvcRequestBuilders
+                .get("/api/boards/1/task-states")
+                .header("Authorization", "Bearer " + token);
+        MvcResult getTaskStatesMvcResult = mvc.perform(getTaskStatesRequest).andReturn();
+
+        BoardImportDto boardImport = objectMapper.readValue(importMvcResult.getResponse().getContentAsString(), BoardImportDto.class);
+        List<TaskStateDto> taskStates = objectMapper.readValue(getTaskStatesMvcResult.getResponse().getContentAsString(),
+                new TypeReference<List<TaskStateDto>>() {});
+
+        assertEquals(200, importMvcResult.getResponse().getStatus());
+        assertEquals(2, boardImport.getTaskStateCount());
+        assertEquals(2, boardImport.getTaskCount());
+        assertEquals(2, taskStates.size());
+        assertEquals("todo", taskStates.get(0).getName());
+        assertEquals("done", taskStates.get(1).getName());
+        assertEquals("first", taskStates.get(0).getTasks().get(0).getName());
+        assertEquals("second", taskStates.get(0).getTasks().get(1).getName());
+    }
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/board-data.sql"})
+    void shouldImportTasksIgnoringTheirIds() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String token = jwtUtil.generateToken(1l);
+        String document = "{\"taskStates\": [" +
+                "{\"name\": \"todo\", \"tasks\": [{\"id\": null, \"name\": \"first\"}, {\"id\": 7, \"name\": \"second\"}]}]}";
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/api/boards/1/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(document)
+                .header("Authorization", "Bearer " + token);
+        MvcResult mvcResult = mvc.perform(request).andReturn();
+
+        BoardImportDto boardImport = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), BoardImportDto.class);
+
+        assertEquals(200, mvcResult.getResponse().getStatus());
+        assertEquals(2, boardImport.getTaskCount());
+    }
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/board-data.sql"})
+    void shouldRejectImportWhenTaskIsMalformed() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+        String document = "{\"taskStates\": [{\"name\": \"todo\", \"tasks\": [{\"name\": {\"first\": 1}}]}]}";
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/api/boards/1/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(document)
+                .header("Authorization", "Bearer " + token);
+        MvcResult mvcResult = mvc.perform(request).andReturn();
+
+        assertEquals(400, mvcResult.getResponse().getStatus());
+    }
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/board-data.sql"})
+    void shouldRejectImportWhenTaskStateNameIsRepeated() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+        String document = "{\"taskStates\": [{\"name\": \"todo\"}, {\"name\": \"TODO\"}]}";
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/api/boards/1/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(document)
+                .header("Authorization", "Bearer " + token);
+        MvcResult mvcResult = mvc.perform(request).andReturn();
+
+        assertEquals(400, mvcResult.getResponse().getStatus());
+    }
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/board-snapshot-data.sql"})
+    void shouldExportBoard() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String token = jwtUtil.generateToken(1l);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/api/boards/1/export")
+                .header("Authorization", "Bearer " + token);
+        MvcResult mvcResult = mvc.perform(asyncDispatch(mvc.perform(request).andReturn())).andReturn();
+
+        List<TaskStateDto> taskStates = objectMapper.readValue(
+                objectMapper.readTree(mvcResult.getResponse().getContentAsString()).get("taskStates").traverse(),
+                new TypeReference<List<TaskStateDto>>() {});
+
+        assertEquals(200, mvcResult.getResponse().getStatus());
+        assertEquals(List.of("second", "first", "third"), taskStates.stream().map(TaskStateDto::getName).toList());
+        assertEquals(List.of("second", "third", "first"),
+                taskStates.get(1).getTasks().stream().map(taskDto -> taskDto.getName()).toList());
+        assertEquals(List.of("fourth", "fifth"),
+                taskStates.get(0).getTasks().stream().map(taskDto -> taskDto.getName()).toList());
+        assertTrue(taskStates.get(2).getTasks().isEmpty());
+    }
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/board-snapshot-data.sql"})
+    void shouldNotExportForeignBoard() throws Exception {
+        String token = jwtUtil.generateToken(2l);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/api/boards/1/export")
+                .header("Authorization", "Bearer " + token);
+        MvcResult mvcResult = mvc.perform(request).andReturn();
+
+        assertEquals(404, mvcResult.getResponse().getStatus());
+    }
+}
@@ -5,8 +5,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.tasktracker.api.dto.AnswerDto;
 import com.tasktracker.api.dto.TaskDto;
+import com.tasktracker.api.dto.TaskSearchResultDto;
 import com.tasktracker.api.util.JWTUtil;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.ws.rs.core.MediaType;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -25,6 +29,8 @@ import org.springframework.web.context.WebApplicationContext;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 @ExtendWith(SpringExtension.class)
@@ -36,6 +42,8 @@ class TaskControllerTest {
     private WebApplicationContext wac;
     @Autowired
     private JWTUtil jwtUtil;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
     private MockMvc mvc;
 
 
@@ -65,6 +73,39 @@ class TaskControllerTest {
         assertTrue(resultTaskDto.getName().equals(taskName));
     }
 
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/task-data.sql"})
+    void shouldCreateTaskWithoutLoadingTaskState() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/api/task-states/1/tasks?task_name=fourth")
+                .header("Authorization", "Bearer " + token);
+        MvcResult mvcResult = mvc.perform(request).andReturn();
+        TaskDto resultTaskDto = new ObjectMapper().readValue(mvcResult.getResponse().getContentAsString(), TaskDto.class);
+
+        assertEquals(200 , mvcResult.getResponse().getStatus());
+        assertEquals(Long.valueOf(3l), resultTaskDto.getPreviousTaskId());
+        assertEquals(0, statistics.getCollectionFetchCount());
+        // ownership check, tail lookup, insert and the board content version bump
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/task-data.sql"})
+    void shouldNotCreateTaskWithReservedName() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .post("/api/task-states/1/tasks?task_name=second")
+                .header("Authorization", "Bearer " + token);
+        MvcResult mvcResult = mvc.perform(request).andReturn();
+
+        assertEquals(400 , mvcResult.getResponse().getStatus());
+    }
+
     @Test
     @Sql({"classpath:empty/reset.sql", "classpath:init/task-data.sql"})
     void shouldGetTasks() throws Exception {
@@ -83,6 +124,105 @@ class TaskControllerTest {
         assertTrue(resultList.size() != 0);
     }
 
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/task-data.sql"})
+    void shouldAnswerNotModifiedUntilTasksChange() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+
+        MvcResult firstMvcResult = mvc.perform(MockMvcRequestBuilders
+                .get("/api/task-states/1/tasks")
+                .header("Authorization", "Bearer " + token)).andReturn();
+        String eTag = firstMvcResult.getResponse().getHeader("ETag");
+        MvcResult unchangedMvcResult = mvc.perform(MockMvcRequestBuilders
+                .get("/api/task-states/1/tasks")
+                .header("If-None-Match", eTag)
+                .header("Authorization", "Bearer " + token)).andReturn();
+        mvc.perform(MockMvcRequestBuilders
+                .post("/api/task-states/1/tasks?task_name=fourth")
+                .header("Authorization", "Bearer " + token)).andReturn();
+        MvcResult changedMvcResult = mvc.perform(MockMvcRequestBuilders
+                .get("/api/task-states/1/tasks")
+                .header("If-None-Match", eTag)
+                .header("Authorization", "Bearer " + token)).andReturn();
+
+        assertEquals(200, firstMvcResult.getResponse().getStatus());
+        assertEquals(304, unchangedMvcResult.getResponse().getStatus());
+        assertEquals(0, unchangedMvcResult.getResponse().getContentLength());
+        assertEquals(200, changedMvcResult.getResponse().getStatus());
+        assertNotEquals(eTag, changedMvcResult.getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/task-data.sql"})
+    void shouldGetTasksPageByPage() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        MvcResult firstMvcResult = mvc.perform(MockMvcRequestBuilders
+                .get("/api/task-states/1/tasks?limit=2")
+                .header("Authorization", "Bearer " + token)).andReturn();
+        String cursor = firstMvcResult.getResponse().getHeader("X-Next-Cursor");
+        MvcResult secondMvcResult = mvc.perform(MockMvcRequestBuilders
+                .get(String.format("/api/task-states/1/tasks?limit=2&cursor=%s", cursor))
+                .header("Authorization", "Bearer " + token)).andReturn();
+        List<TaskDto> firstPage = objectMapper.readValue(firstMvcResult.getResponse().getContentAsString(),
+                new TypeReference<List<TaskDto>>() {});
+        List<TaskDto> secondPage = objectMapper.readValue(secondMvcResult.getResponse().getContentAsString(),
+                new TypeReference<List<TaskDto>>() {});
+
+        assertEquals(200, firstMvcResult.getResponse().getStatus());
+        assertEquals(List.of(1l, 2l), firstPage.stream().map(TaskDto::getId).toList());
+        assertEquals(Long.valueOf(3l), firstPage.get(1).getNextTaskId());
+        assertEquals(List.of(3l), secondPage.stream().map(TaskDto::getId).toList());
+        assertEquals(Long.valueOf(2l), secondPage.get(0).getPreviousTaskId());
+        assertNull(secondMvcResult.getResponse().getHeader("X-Next-Cursor"));
+    }
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/task-data.sql"})
+    void shouldRejectMalformedCursor() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders
+                .get("/api/task-states/1/tasks?limit=2&cursor=garbage")
+                .header("Authorization", "Bearer " + token)).andReturn();
+
+        assertEquals(400, mvcResult.getResponse().getStatus());
+    }
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/task-data.sql"})
+    void shouldSearchOwnTasks() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        MvcResult ownerMvcResult = mvc.perform(MockMvcRequestBuilders
+                .get("/api/tasks/search?query=SEC")
+                .header("Authorization", "Bearer " + jwtUtil.generateToken(1l))).andReturn();
+        MvcResult strangerMvcResult = mvc.perform(MockMvcRequestBuilders
+                .get("/api/tasks/search?query=SEC")
+                .header("Authorization", "Bearer " + jwtUtil.generateToken(2l))).andReturn();
+        List<TaskSearchResultDto> ownerResults = objectMapper.readValue(ownerMvcResult.getResponse().getContentAsString(),
+                new TypeReference<List<TaskSearchResultDto>>() {});
+        List<TaskSearchResultDto> strangerResults = objectMapper.readValue(strangerMvcResult.getResponse().getContentAsString(),
+                new TypeReference<List<TaskSearchResultDto>>() {});
+
+        assertEquals(200, ownerMvcResult.getResponse().getStatus());
+        assertEquals(List.of(2l), ownerResults.stream().map(TaskSearchResultDto::getId).toList());
+        assertEquals(Long.valueOf(1l), ownerResults.get(0).getBoardId());
+        assertTrue(strangerResults.isEmpty());
+    }
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/task-data.sql"})
+    void shouldRejectSearchWithoutWords() throws Exception {
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders
+                .get("/api/tasks/search")
+                .param("query", " - ")
+                .header("Authorization", "Bearer " + jwtUtil.generateToken(1l))).andReturn();
+
+        assertEquals(400, mvcResult.getResponse().getStatus());
+    }
+
     @Test
     @Sql({"classpath:empty/reset.sql", "classpath:init/task-data.sql"})
     void shouldDeleteTask() throws Exception {
@@ -130,6 +270,25 @@ class TaskControllerTest {
                 resultTaskDto.getDescription().equals("bla bla"));
     }
 
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/task-data.sql"})
+    void shouldNotRenameTaskToReservedName() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+        String requestJson = new ObjectMapper().writeValueAsString(TaskDto.builder()
+                .id(1l)
+                .name("second")
+                .build());
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .patch( "/api/tasks")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson);
+        MvcResult mvcResult = mvc.perform(request).andReturn();
+
+        assertEquals(400 , mvcResult.getResponse().getStatus());
+    }
+
     @Test
     @Sql({"classpath:empty/reset.sql", "classpath:init/task-data.sql"})
     void shouldChangeTaskPosition() throws Exception {
@@ -153,4 +312,27 @@ class TaskControllerTest {
         assertTrue(resultTaskDto.getPreviousTaskId().equals(previousTaskId) &&
                 resultTaskDto.getNextTaskId().equals(nextTaskId));
     }
-}
\ No newline at end of file
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/tied-task-data.sql"})
+    void shouldChangeTaskPositionBetweenTasksWithSameRank() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        MvcResult mvcResult = mvc.perform(MockMvcRequestBuilders
+                .patch("/api/tasks/1/position/change?previous_task_id=2")
+                .header("Authorization", "Bearer " + token)).andReturn();
+        TaskDto resultTaskDto = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), TaskDto.class);
+
+        MvcResult tasksMvcResult = mvc.perform(MockMvcRequestBuilders
+                .get("/api/task-states/1/tasks")
+                .header("Authorization", "Bearer " + token)).andReturn();
+        List<TaskDto> tasks = objectMapper.readValue(tasksMvcResult.getResponse().getContentAsString(),
+                new TypeReference<List<TaskDto>>() {});
+
+        assertEquals(200 , mvcResult.getResponse().getStatus());
+        assertEquals(Long.valueOf(2l), resultTaskDto.getPreviousTaskId());
+        assertEquals(Long.valueOf(3l), resultTaskDto.getNextTaskId());
+        assertEquals(List.of(2l, 1l, 3l), tasks.stream().map(TaskDto::getId).toList());
+    }
+}
@@ -3,14 +3,20 @@ package com.tasktracker.api.controllers;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tasktracker.api.dto.AnswerDto;
+import com.tasktracker.api.dto.TaskDto;
 import com.tasktracker.api.dto.TaskStateDto;
+import com.tasktracker.api.services.BoardSnapshotCache;
 import com.tasktracker.api.util.JWTUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -24,6 +30,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 @ExtendWith(SpringExtension.class)
@@ -35,12 +43,19 @@ class TaskStateControllerTest {
     private WebApplicationContext wac;
     @Autowired
     private JWTUtil jwtUtil;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private BoardSnapshotCache boardSnapshotCache;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
     private MockMvc mvc;
 
 
     @BeforeEach
     public void setup(){
         mvc = MockMvcBuilders.webAppContextSetup(wac).build();
+        boardSnapshotCache.invalidateAll();
     }
 
     @Test
@@ -60,6 +75,112 @@ class TaskStateControllerTest {
         assertTrue(resultList.size() != 0);
     }
 
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/board-snapshot-data.sql"})
+    void shouldGetTaskStatesInThreeStatements() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .get("/api/boards/1/task-states")
+                .header("Authorization", "Bearer " + token);
+        MvcResult mvcResult = mvc.perform(request).andReturn();
+        long statementCount = statistics.getPrepareStatementCount();
+        String jsonResponse = mvcResult.getResponse().getContentAsString();
+        List<TaskStateDto> resultList = new ObjectMapper().readValue(jsonResponse, new TypeReference<List<TaskStateDto>>() {});
+
+        assertEquals(200 , mvcResult.getResponse().getStatus());
+        assertEquals(3, statementCount);
+        assertEquals(List.of(2l, 1l, 3l), resultList.stream().map(TaskStateDto::getId).toList());
+        assertEquals(List.of(2l, 3l, 1l), resultList.get(1).getTasks().stream().map(TaskDto::getId).toList());
+        assertEquals(Long.valueOf(1l), resultList.get(0).getNextTaskStateId());
+        assertEquals(Long.valueOf(3l), resultList.get(1).getTasks().get(0).getNextTaskId());
+        assertTrue(resultList.get(2).getTasks().isEmpty());
+    }
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/board-snapshot-data.sql"})
+    void shouldServeCachedTaskStatesUntilBoardChanges() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        RequestBuilder getRequest = MockMvcRequestBuilders
+                .get("/api/boards/1/task-states")
+                .header("Authorization", "Bearer " + token);
+        RequestBuilder createRequest = MockMvcRequestBuilders
+                .post("/api/boards/1/task-states?task_state_name=fourth")
+                .header("Authorization", "Bearer " + token);
+
+        mvc.perform(getRequest).andReturn();
+        statistics.clear();
+        MvcResult cachedMvcResult = mvc.perform(getRequest).andReturn();
+        long cachedStatementCount = statistics.getPrepareStatementCount();
+        mvc.perform(createRequest).andReturn();
+        MvcResult changedMvcResult = mvc.perform(getRequest).andReturn();
+        List<TaskStateDto> cachedList = new ObjectMapper().readValue(cachedMvcResult.getResponse().getContentAsString(),
+                new TypeReference<List<TaskStateDto>>() {});
+        List<TaskStateDto> changedList = new ObjectMapper().readValue(changedMvcResult.getResponse().getContentAsString(),
+                new TypeReference<List<TaskStateDto>>() {});
+
+        assertEquals(1, cachedStatementCount);
+        assertEquals(3, cachedList.size());
+        assertEquals(4, changedList.size());
+        assertEquals("fourth", changedList.get(3).getName());
+    }
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/board-snapshot-data.sql"})
+    void shouldReloadTaskStatesChangedByAnotherInstance() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+        RequestBuilder getRequest = MockMvcRequestBuilders
+                .get("/api/boards/1/task-states")
+                .header("Authorization", "Bearer " + token);
+
+        MvcResult cachedMvcResult = mvc.perform(getRequest).andReturn();
+        // another instance commits a change, its event never reaches this cache
+        jdbcTemplate.update("INSERT INTO Task_state (id, name, board_id, position, person_id) values (4, 'fourth', 1, 4096, 1)");
+        jdbcTemplate.update("UPDATE Board SET content_version = coalesce(content_version, 0) + 1 WHERE id = 1");
+        MvcResult changedMvcResult = mvc.perform(getRequest).andReturn();
+        List<TaskStateDto> changedList = new ObjectMapper().readValue(changedMvcResult.getResponse().getContentAsString(),
+                new TypeReference<List<TaskStateDto>>() {});
+
+        assertNotEquals(cachedMvcResult.getResponse().getHeader("ETag"), changedMvcResult.getResponse().getHeader("ETag"));
+        assertEquals(4, changedList.size());
+        assertEquals("fourth", changedList.get(3).getName());
+    }
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/board-snapshot-data.sql"})
+    void shouldAnswerNotModifiedWithoutLoadingTaskStates() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        MvcResult firstMvcResult = mvc.perform(MockMvcRequestBuilders
+                .get("/api/boards/1/task-states")
+                .header("Authorization", "Bearer " + token)).andReturn();
+        String eTag = firstMvcResult.getResponse().getHeader("ETag");
+        boardSnapshotCache.invalidateAll();
+        statistics.clear();
+        MvcResult unchangedMvcResult = mvc.perform(MockMvcRequestBuilders
+                .get("/api/boards/1/task-states")
+                .header("If-None-Match", eTag)
+                .header("Authorization", "Bearer " + token)).andReturn();
+        long statementCount = statistics.getPrepareStatementCount();
+        mvc.perform(MockMvcRequestBuilders
+                .post("/api/boards/1/task-states?task_state_name=fourth")
+                .header("Authorization", "Bearer " + token)).andReturn();
+        MvcResult changedMvcResult = mvc.perform(MockMvcRequestBuilders
+                .get("/api/boards/1/task-states")
+                .header("If-None-Match", eTag)
+                .header("Authorization", "Bearer " + token)).andReturn();
+
+        assertEquals(200, firstMvcResult.getResponse().getStatus());
+        assertEquals(304, unchangedMvcResult.getResponse().getStatus());
+        assertEquals(1, statementCount);
+        assertEquals(200, changedMvcResult.getResponse().getStatus());
+        assertNotEquals(eTag, changedMvcResult.getResponse().getHeader("ETag"));
+    }
+
     @Test
     @Sql({"classpath:empty/reset.sql", "classpath:init/task-state-data.sql"})
     void shouldCreateTaskState() throws Exception {
@@ -76,8 +197,8 @@ class TaskStateControllerTest {
 
         assertEquals(200 , mvcResult.getResponse().getStatus());
         assertTrue(resultTaskStateDto.getName().equals(taskStateName));
-        assertTrue(resultTaskStateDto.getPreviousTaskStateId()!=null);
-        assertTrue(resultTaskStateDto.getId().equals(4l));
+        assertEquals(Long.valueOf(3l), resultTaskStateDto.getPreviousTaskStateId());
+        assertTrue(!List.of(1l, 2l, 3l).contains(resultTaskStateDto.getId()));
     }
 
     @Test
@@ -88,7 +209,7 @@ class TaskStateControllerTest {
         ObjectMapper objectMapper = new ObjectMapper();
 
         RequestBuilder request = MockMvcRequestBuilders
-                .patch(String.format("/api/task-states/1?updated_name=%s", taskStateName))
+                .patch(String.format("/api/task-states/1?new_name=%s", taskStateName))
                 .header("Authorization", "Bearer " + token);
         MvcResult mvcResult = mvc.perform(request).andReturn();
         String jsonResponse = mvcResult.getResponse().getContentAsString();
@@ -107,6 +228,8 @@ class TaskStateControllerTest {
             return taskState.getId().equals(resultTaskStateDto.getId()) &&
                     taskState.getName().equals(taskStateName);
         }));
+        assertNull(resultTaskStateDto.getPreviousTaskStateId());
+        assertEquals(Long.valueOf(2l), resultTaskStateDto.getNextTaskStateId());
     }
 
     @Test
@@ -179,4 +302,20 @@ class TaskStateControllerTest {
         assertEquals(200 , mvcResult.getResponse().getStatus());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    @Sql({"classpath:empty/reset.sql", "classpath:init/tied-task-state-data.sql"})
+    void shouldChangeTaskStatePositionBetweenTiedTaskStates() throws Exception {
+        String token = jwtUtil.generateToken(1l);
+
+        RequestBuilder request = MockMvcRequestBuilders
+                .patch("/api/task-states/3/position/change?previous_task_state_id=1&next_task_state_id=2")
+                .header("Authorization", "Bearer " + token);
+        MvcResult mvcResult = mvc.perform(request).andReturn();
+        List<TaskStateDto> taskStates = new ObjectMapper().readValue(mvcResult.getResponse().getContentAsString(),
+                new TypeReference<List<TaskStateDto>>() {});
+
+        assertEquals(200, mvcResult.getResponse().getStatus());
+        assertEquals(List.of(1l, 3l, 2l), taskStates.stream().map(TaskStateDto::getId).toList());
+    }
+}
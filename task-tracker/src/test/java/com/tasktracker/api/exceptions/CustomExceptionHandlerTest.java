@@ -0,0 +1,22 @@
+package com.tasktracker.api.exceptions;
+
+import com.tasktracker.store.entities.TaskEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomExceptionHandlerTest {
+
+    private final CustomExceptionHandler handler = new CustomExceptionHandler();
+
+    @Test
+    void shouldAnswerConflictWhenWriteLostRace() {
+        ResponseEntity<ErrorDto> response = handler.optimisticLockingFailure(
+                new ObjectOptimisticLockingFailureException(TaskEntity.class, 1l));
+
+        assertEquals(409, response.getStatusCode().value());
+        assertEquals("Conflict", response.getBody().getError());
+    }
+}
@@ -0,0 +1,46 @@
+package com.tasktracker.api.filters;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GatewayCacheHeadersFilterTest {
+
+    private final GatewayCacheHeadersFilter filter = new GatewayCacheHeadersFilter(Duration.ofSeconds(30));
+
+    @Test
+    void shouldLetGatewayKeepReads() throws Exception {
+        MockHttpServletResponse response = filter("GET", "/api/boards/1/task-states");
+
+        assertEquals("max-age=0, s-maxage=30", response.getHeader("Cache-Control"));
+        assertNull(response.getHeader(GatewayCacheHeadersFilter.CACHE_INVALIDATE_HEADER));
+    }
+
+    @Test
+    void shouldInvalidateOnChanges() throws Exception {
+        for (String method : new String[]{"POST", "PUT", "PATCH", "DELETE"}) {
+            MockHttpServletResponse response = filter(method, "/api/task-states/1");
+
+            assertEquals("person", response.getHeader(GatewayCacheHeadersFilter.CACHE_INVALIDATE_HEADER));
+            assertNull(response.getHeader("Cache-Control"));
+        }
+    }
+
+    @Test
+    void shouldLeaveOtherPathsAlone() throws Exception {
+        MockHttpServletResponse response = filter("GET", "/actuator/health");
+
+        assertNull(response.getHeader("Cache-Control"));
+    }
+
+    private MockHttpServletResponse filter(String method, String uri) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(method, uri), response, new MockFilterChain());
+        return response;
+    }
+}
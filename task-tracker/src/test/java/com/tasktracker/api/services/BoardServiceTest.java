@@ -12,6 +12,7 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.context.ContextConfiguration;
 import java.util.Collections;
 import java.util.List;
@@ -29,6 +30,9 @@ class BoardServiceTest{
     @Mock
     private BoardDtoFactory boardDtoFactory;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private BoardService boardService;
 
@@ -52,14 +56,21 @@ class BoardServiceTest{
     void shouldBoardByName(){
         BoardEntity board = mock(BoardEntity.class);
         BoardDto boardDto = mock(BoardDto.class);
-        when(boardRepo.findAllByNameStartingWithIgnoreCaseAndPersonId(anyString(),anyLong()))
+        when(boardRepo.findAllByPersonIdAndLowerNameLike(anyLong(), anyString()))
                 .thenReturn(Collections.singletonList(board));
         when(boardDtoFactory.makeBoardDto(any(BoardEntity.class))).thenReturn(boardDto);
 
         List<BoardDto> resultList = boardService.fetchBoard(Optional.of("test"), 1l);
 
         assertEquals(boardDto, resultList.get(0));
-        Mockito.verify(boardRepo).findAllByNameStartingWithIgnoreCaseAndPersonId(anyString(), anyLong());
+        Mockito.verify(boardRepo).findAllByPersonIdAndLowerNameLike(1l, "test%");
+    }
+
+    @Test
+    void shouldEscapeWildcardsInBoardNamePrefix(){
+        boardService.fetchBoard(Optional.of("Sprint_10%"), 1l);
+
+        Mockito.verify(boardRepo).findAllByPersonIdAndLowerNameLike(1l, "sprint\\_10\\%%");
     }
 
     @Test
@@ -80,7 +91,7 @@ class BoardServiceTest{
     void shouldCreateBoard() {
         BoardEntity board = mock(BoardEntity.class);
         BoardDto boardDto = mock(BoardDto.class);
-        when(boardRepo.saveAndFlush(any(BoardEntity.class))).thenReturn(board);
+        when(boardRepo.save(any(BoardEntity.class))).thenReturn(board);
         when(boardDtoFactory.makeBoardDto(any(BoardEntity.class))).thenReturn(boardDto);
 
         BoardDto resultBoard = boardService.createBoardOrUpdateBoard(Optional.empty(),
@@ -0,0 +1,80 @@
+package com.tasktracker.api.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tasktracker.api.dto.BoardSnapshotDto;
+import com.tasktracker.api.dto.TaskStateDto;
+import com.tasktracker.api.events.BoardChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BoardSnapshotCacheTest {
+
+    private TaskStateService taskStateService;
+    private SimpleMeterRegistry meterRegistry;
+    private BoardSnapshotCache boardSnapshotCache;
+
+    @BeforeEach
+    void setUp() {
+        taskStateService = mock(TaskStateService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        boardSnapshotCache = new BoardSnapshotCache(taskStateService, new ObjectMapper(), meterRegistry,
+                1024 * 1024, Duration.ofMinutes(10));
+        when(taskStateService.getBoardSnapshot(1L, 1L)).thenReturn(BoardSnapshotDto.builder()
+                .contentVersion(3L)
+                .taskStates(List.of(TaskStateDto.builder().id(1L).name("todo").tasks(List.of()).build()))
+                .build());
+    }
+
+    @Test
+    void shouldServeRepeatedReadsFromCache() {
+        BoardSnapshotCache.Snapshot first = boardSnapshotCache.getBoardSnapshot(1L, 1L, 3L);
+        BoardSnapshotCache.Snapshot second = boardSnapshotCache.getBoardSnapshot(1L, 1L, 3L);
+
+        assertSame(first, second);
+        assertEquals(3L, first.contentVersion());
+        verify(taskStateService, times(1)).getBoardSnapshot(1L, 1L);
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void shouldReloadBoardAfterChange() {
+        boardSnapshotCache.getBoardSnapshot(1L, 1L, 3L);
+        boardSnapshotCache.onBoardChanged(new BoardChangedEvent(1L, 1L));
+        boardSnapshotCache.getBoardSnapshot(1L, 1L, 3L);
+
+        verify(taskStateService, times(2)).getBoardSnapshot(1L, 1L);
+    }
+
+    @Test
+    void shouldReloadBoardChangedElsewhere() {
+        BoardSnapshotCache.Snapshot first = boardSnapshotCache.getBoardSnapshot(1L, 1L, 3L);
+        when(taskStateService.getBoardSnapshot(1L, 1L))
+                .thenReturn(BoardSnapshotDto.builder().contentVersion(4L).taskStates(List.of()).build());
+        BoardSnapshotCache.Snapshot second = boardSnapshotCache.getBoardSnapshot(1L, 1L, 4L);
+        BoardSnapshotCache.Snapshot third = boardSnapshotCache.getBoardSnapshot(1L, 1L, 4L);
+
+        assertNotSame(first, second);
+        assertEquals(4L, second.contentVersion());
+        assertSame(second, third);
+        verify(taskStateService, times(2)).getBoardSnapshot(1L, 1L);
+    }
+
+    @Test
+    void shouldKeepBoardsOfOtherOwnersApart() {
+        when(taskStateService.getBoardSnapshot(1L, 2L))
+                .thenReturn(BoardSnapshotDto.builder().contentVersion(0L).taskStates(List.of()).build());
+
+        boardSnapshotCache.getBoardSnapshot(1L, 1L, 3L);
+        boardSnapshotCache.getBoardSnapshot(1L, 2L, 0L);
+
+        verify(taskStateService).getBoardSnapshot(1L, 2L);
+    }
+}
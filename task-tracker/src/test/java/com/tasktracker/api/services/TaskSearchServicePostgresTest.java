@@ -0,0 +1,70 @@
+package com.tasktracker.api.services;
+
+import com.tasktracker.api.dto.PageDto;
+import com.tasktracker.api.dto.TaskSearchResultDto;
+import com.tasktracker.store.migrations.IndexMigration;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Covers the full-text search query, which only runs on PostgreSQL.
+ * Run with {@code ./gradlew postgresTest}, see {@code application-postgres.yml}.
+ */
+@Tag("postgres")
+@SpringBootTest
+@ActiveProfiles("postgres")
+@Sql(statements = "truncate table task, task_state, board cascade")
+@Sql("classpath:init/task-search-data.sql")
+class TaskSearchServicePostgresTest {
+
+    @Autowired
+    private TaskSearchService taskSearchService;
+
+    // creates the search vector, beans are initialized lazily in tests
+    @Autowired
+    private IndexMigration indexMigration;
+
+    @Test
+    void shouldRankOwnTasksByMatches() {
+        List<Long> ids = search("gateway", Optional.empty(), 10, 1l).getItems().stream()
+                .map(TaskSearchResultDto::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(1l, 2l, 3l), ids);
+    }
+
+    @Test
+    void shouldMatchEveryWordAndPrefixOfLastOne() {
+        PageDto<TaskSearchResultDto> page = search("gateway time", Optional.empty(), 10, 1l);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals(2l, page.getItems().get(0).getId());
+        assertEquals(1l, page.getItems().get(0).getBoardId());
+    }
+
+    @Test
+    void shouldContinueAfterCursor() {
+        PageDto<TaskSearchResultDto> firstPage = search("gateway", Optional.empty(), 2, 1l);
+        PageDto<TaskSearchResultDto> secondPage = search("gateway", Optional.of(firstPage.getNextCursor()), 2, 1l);
+
+        assertEquals(2, firstPage.getItems().size());
+        assertNotNull(firstPage.getNextCursor());
+        assertEquals(1, secondPage.getItems().size());
+        assertEquals(3l, secondPage.getItems().get(0).getId());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    private PageDto<TaskSearchResultDto> search(String query, Optional<String> cursor, int limit, Long personId) {
+        return taskSearchService.search(query, cursor, limit, personId);
+    }
+}
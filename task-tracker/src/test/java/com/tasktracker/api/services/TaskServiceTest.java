@@ -4,17 +4,23 @@ import com.tasktracker.api.dto.AnswerDto;
 import com.tasktracker.api.dto.TaskDto;
 import com.tasktracker.api.exceptions.BadRequestException;
 import com.tasktracker.api.factories.TaskDtoFactory;
+import com.tasktracker.api.util.RankUtil;
 import com.tasktracker.store.entities.BoardEntity;
 import com.tasktracker.store.entities.TaskEntity;
 import com.tasktracker.store.entities.TaskStateEntity;
 import com.tasktracker.store.repositories.TaskRepo;
 import com.tasktracker.store.repositories.TaskStateRepo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import org.junit.Before;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ContextConfiguration;
 
 import java.util.List;
@@ -41,6 +47,12 @@ class TaskServiceTest {
     @Mock
     private TaskStateRepo taskStateRepo;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
     @Before
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
@@ -64,14 +76,12 @@ class TaskServiceTest {
                         .id(1l)
                         .build()
         );
-        when(taskStateRepo.findById(anyLong())).thenReturn(Optional.ofNullable(taskStateEntity));
+        when(taskStateRepo.findLockedByIdAndPersonId(anyLong(), anyLong())).thenReturn(Optional.ofNullable(taskStateEntity));
         when(taskRepo.saveAndFlush(any(TaskEntity.class))).thenReturn(taskEntity);
 
         taskService.createTask(1l, "test", 1l);
 
-
-        verify(taskEntity, never()).setPreviousTask(any(TaskEntity.class));
-        verify(taskRepo, times(2)).saveAndFlush(any(TaskEntity.class));
+        verify(taskRepo).saveAndFlush(argThat(task -> RankUtil.INITIAL_RANK.equals(task.getRank())));
     }
 
     @Test
@@ -95,14 +105,17 @@ class TaskServiceTest {
         TaskEntity firstTask = spy(TaskEntity.builder()
                 .id(2l)
                 .name("first task")
+                .rank("i")
                 .build());
-        when(taskStateEntity.getTasks()).thenReturn(List.of(firstTask));
-        when(taskStateRepo.findById(anyLong())).thenReturn(Optional.ofNullable(taskStateEntity));
+        when(taskRepo.findFirstByTaskStateIdOrderByRankDescIdDesc(1l)).thenReturn(Optional.of(firstTask));
+        when(taskStateRepo.findLockedByIdAndPersonId(anyLong(), anyLong())).thenReturn(Optional.ofNullable(taskStateEntity));
         when(taskRepo.saveAndFlush(any(TaskEntity.class))).thenReturn(taskEntity);
 
         taskService.createTask(1l, "test", 1l);
 
-        verify(taskRepo, times(3)).saveAndFlush(any(TaskEntity.class));
+        verify(taskStateEntity, never()).getTasks();
+        verify(taskRepo).saveAndFlush(argThat(task -> "i".compareTo(task.getRank()) < 0));
+        verify(taskDtoFactory).makeTaskDto(taskEntity, 2l, null);
     }
 
     @Test
@@ -124,12 +137,9 @@ class TaskServiceTest {
                         .id(1l)
                         .build())
                 .build());
-        TaskEntity taskEntity = spy(TaskEntity.builder()
-                .id(2l)
-                .name("test")
-                .build());
-        when(taskStateRepo.findById(anyLong())).thenReturn(Optional.ofNullable(taskStateEntity));
-        when(taskStateEntity.getTasks()).thenReturn(List.of(taskEntity));
+        when(taskStateRepo.findLockedByIdAndPersonId(anyLong(), anyLong())).thenReturn(Optional.ofNullable(taskStateEntity));
+        when(taskRepo.saveAndFlush(any(TaskEntity.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_task_task_state_id_name"));
 
         assertThrows(BadRequestException.class, () -> {
            taskService.createTask(1l, "test", personId);
@@ -147,16 +157,16 @@ class TaskServiceTest {
                         .id(1l)
                         .build())
                 .build());
-        when(taskStateRepo.findById(anyLong())).thenReturn(Optional.ofNullable(taskStateEntity));
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong())).thenReturn(Optional.ofNullable(taskStateEntity));
 
         taskService.getTasks(1l, 1l);
 
         verify(taskStateEntity).getTasks();
-        verify(taskStateRepo).findById(anyLong());
+        verify(taskStateRepo).findByIdAndPersonId(1l, 1l);
     }
 
     @Test
-    void shouldDeleteTaskWithNoNeighbors() {
+    void shouldDeleteTask() {
         TaskEntity taskEntity = spy(TaskEntity.builder()
                 .name("task")
                 .id(1l)
@@ -168,117 +178,15 @@ class TaskServiceTest {
                                 .build())
                         .build())
                 .build());
-        when(taskRepo.findById(anyLong())).thenReturn(Optional.ofNullable(taskEntity));
-        when(taskEntity.getPreviousTask()).thenReturn(Optional.empty());
-        when(taskEntity.getNextTask()).thenReturn(Optional.empty());
+        when(taskRepo.findByIdAndPersonId(anyLong(), anyLong())).thenReturn(Optional.ofNullable(taskEntity));
 
         AnswerDto answerDto = taskService.deleteTask(1l, 1l);
 
         assertTrue(answerDto.isAnswer());
-        verify(taskEntity).getPreviousTask();
-        verify(taskEntity).getNextTask();
+        verify(taskRepo, never()).save(any(TaskEntity.class));
         verify(taskRepo).deleteById(anyLong());
     }
 
-    @Test
-    void shouldDeleteTaskWithBothNeighbors() {
-        TaskEntity taskEntity = spy(TaskEntity.builder()
-                .name("task")
-                .id(1l)
-                .taskState(TaskStateEntity.builder()
-                        .board(BoardEntity.builder()
-                                .personId(1l)
-                                .name("board")
-                                .id(1l)
-                                .build())
-                        .build())
-                .build());
-        TaskEntity previousTask =  spy(TaskEntity.builder()
-                .id(2l)
-                .name("previous")
-                .build());
-        TaskEntity nextTask =  spy(TaskEntity.builder()
-                .id(3l)
-                .name("next")
-                .build());
-        when(taskRepo.findById(anyLong())).thenReturn(Optional.ofNullable(taskEntity));
-        when(taskEntity.getPreviousTask()).thenReturn(Optional.ofNullable(previousTask));
-        when(taskEntity.getNextTask()).thenReturn(Optional.ofNullable(nextTask));
-
-        AnswerDto answerDto = taskService.deleteTask(1l, 1l);
-
-        assertTrue(answerDto.isAnswer());
-        verify(taskEntity).getPreviousTask();
-        verify(taskEntity).getNextTask();
-        verify(previousTask).setNextTask(any(TaskEntity.class));
-        verify(nextTask).setPreviousTask(any(TaskEntity.class));
-        verify(taskRepo, times(2)).save(any(TaskEntity.class));
-        verify(taskRepo).deleteById(anyLong());
-    }
-
-    @Test
-    void shouldDeleteTaskWhenItsInTheEnd() {
-        TaskEntity taskEntity = spy(TaskEntity.builder()
-                .name("task")
-                .id(1l)
-                .taskState(TaskStateEntity.builder()
-                        .board(BoardEntity.builder()
-                                .personId(1l)
-                                .name("board")
-                                .id(1l)
-                                .build())
-                        .build())
-                .build());
-        TaskEntity previousTask =  spy(TaskEntity.builder()
-                .id(2l)
-                .name("previous")
-                .build());
-        when(taskRepo.findById(anyLong())).thenReturn(Optional.ofNullable(taskEntity));
-        when(taskEntity.getPreviousTask()).thenReturn(Optional.ofNullable(previousTask));
-        when(taskEntity.getNextTask()).thenReturn(Optional.empty());
-
-        AnswerDto answerDto = taskService.deleteTask(1l, 1l);
-
-        assertTrue(answerDto.isAnswer());
-        verify(taskEntity).getPreviousTask();
-        verify(taskEntity).getNextTask();
-        verify(previousTask).setNextTask(null);
-        verify(taskRepo).save(any(TaskEntity.class));
-        verify(taskRepo).deleteById(anyLong());
-    }
-
-    @Test
-    void shouldDeleteTaskWhenItsInTheStart() {
-        TaskEntity taskEntity = spy(TaskEntity.builder()
-                .name("task")
-                .id(1l)
-                .taskState(TaskStateEntity.builder()
-                        .board(BoardEntity.builder()
-                                .personId(1l)
-                                .name("board")
-                                .id(1l)
-                                .build())
-                        .build())
-                .build());
-        TaskEntity nextTask =  spy(TaskEntity.builder()
-                .id(3l)
-                .name("next")
-                .build());
-        when(taskRepo.findById(anyLong())).thenReturn(Optional.ofNullable(taskEntity));
-        when(taskEntity.getPreviousTask()).thenReturn(Optional.empty());
-        when(taskEntity.getNextTask()).thenReturn(Optional.ofNullable(nextTask));
-
-        AnswerDto answerDto = taskService.deleteTask(1l, 1l);
-
-        assertTrue(answerDto.isAnswer());
-        verify(taskEntity).getPreviousTask();
-        verify(taskEntity).getNextTask();
-        verify(nextTask).setPreviousTask(null);
-        verify(taskRepo).save(any(TaskEntity.class));
-        verify(taskRepo).deleteById(anyLong());
-    }
-
-
     @Test
     void shouldUpdateTaskWhenGivenName() {
         TaskEntity taskEntity = spy(TaskEntity.builder()
@@ -296,7 +204,7 @@ class TaskServiceTest {
                 .name("taskDto")
                 .id(2l)
                 .build());
-        when(taskRepo.findById(anyLong())).thenReturn(Optional.ofNullable(taskEntity));
+        when(taskRepo.findByIdAndPersonId(anyLong(), anyLong())).thenReturn(Optional.ofNullable(taskEntity));
 
         taskService.update(taskDto, 1l);
 
@@ -323,7 +231,7 @@ class TaskServiceTest {
                 .id(2l)
                 .description("bla bla bla")
                 .build());
-        when(taskRepo.findById(anyLong())).thenReturn(Optional.ofNullable(taskEntity));
+        when(taskRepo.findByIdAndPersonId(anyLong(), anyLong())).thenReturn(Optional.ofNullable(taskEntity));
 
         taskService.update(taskDto, 1l);
 
@@ -391,12 +299,10 @@ class TaskServiceTest {
                         .build())
                 .build();
 
-        when(taskRepo.findById(anyLong()))
+        when(taskRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(currTask))
                 .thenReturn(Optional.ofNullable(previousTask))
                 .thenReturn(Optional.ofNullable(nextTask));
-        when(currTask.getPreviousTask()).thenReturn(Optional.empty());
-        when(currTask.getNextTask()).thenReturn(Optional.empty());
 
 
 
@@ -434,12 +340,10 @@ class TaskServiceTest {
                         .build())
                 .build();
 
-        when(taskRepo.findById(anyLong()))
+        when(taskRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(currTask))
                 .thenReturn(Optional.ofNullable(previousTask))
                 .thenReturn(Optional.empty());
-        when(currTask.getPreviousTask()).thenReturn(Optional.empty());
-        when(currTask.getNextTask()).thenReturn(Optional.empty());
 
 
 
@@ -476,12 +380,10 @@ class TaskServiceTest {
                         .build())
                 .build();
 
-        when(taskRepo.findById(anyLong()))
+        when(taskRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(currTask))
                 .thenReturn(Optional.empty())
                 .thenReturn(Optional.ofNullable(nextTask));
-        when(currTask.getPreviousTask()).thenReturn(Optional.empty());
-        when(currTask.getNextTask()).thenReturn(Optional.empty());
 
 
 
@@ -495,6 +397,7 @@ class TaskServiceTest {
         TaskEntity currTask = spy(TaskEntity.builder()
                 .name("curr task")
                 .id(1l)
+                .rank("a")
                 .taskState(TaskStateEntity.builder()
                         .id(1l)
                         .name("curr task state")
@@ -505,47 +408,82 @@ class TaskServiceTest {
                                 .build())
                         .build())
                 .build());
+        TaskStateEntity taskState = TaskStateEntity.builder()
+                .id(2l)
+                .name(" task state")
+                .board(BoardEntity.builder()
+                        .id(1l)
+                        .name(" board")
+                        .personId(1l)
+                        .build())
+                .build();
         TaskEntity previousTask = spy(TaskEntity.builder()
                 .name("previous task")
                 .id(2l)
-                .taskState(TaskStateEntity.builder()
-                        .id(2l)
-                        .name(" task state")
-                        .board(BoardEntity.builder()
-                                .id(1l)
-                                .name(" board")
-                                .personId(1l)
-                                .build())
-                        .build())
+                .rank("i")
+                .taskState(taskState)
                 .build());
         TaskEntity nextTask = spy(TaskEntity.builder()
                 .name("next task")
                 .id(3l)
-                .taskState(TaskStateEntity.builder()
-                        .id(2l)
-                        .name(" task state")
-                        .board(BoardEntity.builder()
-                                .id(1l)
-                                .name(" board")
-                                .personId(1l)
-                                .build())
-                        .build())
+                .rank("j")
+                .taskState(taskState)
                 .build());
 
-        when(taskRepo.findById(anyLong()))
+        when(taskRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(currTask))
                 .thenReturn(Optional.ofNullable(previousTask))
                 .thenReturn(Optional.ofNullable(nextTask));
-        when(currTask.getPreviousTask()).thenReturn(Optional.empty());
-        when(currTask.getNextTask()).thenReturn(Optional.empty());
 
         taskService.changeTaskPosition(1l, Optional.ofNullable(2l), Optional.ofNullable(3l), 1l);
 
-        verify(taskRepo, times(3)).save(any(TaskEntity.class));
-        verify(currTask).setPreviousTask(any(TaskEntity.class));
-        verify(currTask).setNextTask(any(TaskEntity.class));
-        verify(previousTask).setNextTask(any(TaskEntity.class));
-        verify(nextTask).setPreviousTask(any(TaskEntity.class));
+        verify(taskRepo).save(currTask);
+        verify(currTask).setTaskState(taskState);
+        assertTrue(currTask.getRank().compareTo("i") > 0 && currTask.getRank().compareTo("j") < 0);
+        verify(previousTask, never()).setRank(anyString());
+        verify(nextTask, never()).setRank(anyString());
+        verify(taskDtoFactory).makeTaskDto(currTask, 2l, 3l);
+    }
+
+    @Test
+    void shouldThrowBadRequestExcWhenNeighboursAreInWrongOrderChangingTaskPosition(){
+        TaskStateEntity taskState = TaskStateEntity.builder()
+                .id(1l)
+                .name("task state")
+                .board(BoardEntity.builder()
+                        .id(1l)
+                        .name("board")
+                        .personId(1l)
+                        .build())
+                .build();
+        TaskEntity currTask = TaskEntity.builder()
+                .name("curr task")
+                .id(1l)
+                .rank("a")
+                .taskState(taskState)
+                .build();
+        TaskEntity previousTask = TaskEntity.builder()
+                .name("previous task")
+                .id(2l)
+                .rank("j")
+                .taskState(taskState)
+                .build();
+        TaskEntity nextTask = TaskEntity.builder()
+                .name("next task")
+                .id(3l)
+                .rank("i")
+                .taskState(taskState)
+                .build();
+
+        when(taskRepo.findByIdAndPersonId(anyLong(), anyLong()))
+                .thenReturn(Optional.ofNullable(currTask))
+                .thenReturn(Optional.ofNullable(previousTask))
+                .thenReturn(Optional.ofNullable(nextTask));
+
+        assertThrows(BadRequestException.class, ()->{
+            taskService.changeTaskPosition(1l, Optional.ofNullable(2l), Optional.ofNullable(3l), 1l);
+        });
+        verify(taskRepo, never()).save(any(TaskEntity.class));
     }
 
     @Test
@@ -553,6 +491,7 @@ class TaskServiceTest {
         TaskEntity currTask = spy(TaskEntity.builder()
                 .name("curr task")
                 .id(1l)
+                .rank("a")
                 .taskState(TaskStateEntity.builder()
                         .id(1l)
                         .name("curr task state")
@@ -566,6 +505,7 @@ class TaskServiceTest {
         TaskEntity nextTask = spy(TaskEntity.builder()
                 .name("next task")
                 .id(3l)
+                .rank("i")
                 .taskState(TaskStateEntity.builder()
                         .id(2l)
                         .name(" task state")
@@ -577,19 +517,19 @@ class TaskServiceTest {
                         .build())
                 .build());
 
-        when(taskRepo.findById(anyLong()))
+        when(taskRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(currTask))
                 .thenReturn(Optional.empty())
                 .thenReturn(Optional.ofNullable(nextTask));
-        when(currTask.getPreviousTask()).thenReturn(Optional.empty());
-        when(currTask.getNextTask()).thenReturn(Optional.empty());
+        when(taskRepo.findAllBefore(2l, "i", 3l, PageRequest.of(0, 2)))
+                .thenReturn(List.of());
 
         taskService.changeTaskPosition(1l, Optional.ofNullable(2l), Optional.ofNullable(3l), 1l);
 
-        verify(taskRepo, times(2)).save(any(TaskEntity.class));
-        verify(currTask).setPreviousTask(null);
-        verify(currTask).setNextTask(any(TaskEntity.class));
-        verify(nextTask).setPreviousTask(any(TaskEntity.class));
+        verify(taskRepo).save(currTask);
+        assertTrue(currTask.getRank().compareTo("i") < 0);
+        verify(taskDtoFactory).makeTaskDto(currTask, null, 3l);
+        verify(entityManager).lock(nextTask, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
     }
 
     @Test
@@ -597,6 +537,7 @@ class TaskServiceTest {
         TaskEntity currTask = spy(TaskEntity.builder()
                 .name("curr task")
                 .id(1l)
+                .rank("a")
                 .taskState(TaskStateEntity.builder()
                         .id(1l)
                         .name("curr task state")
@@ -610,6 +551,7 @@ class TaskServiceTest {
         TaskEntity previousTask = spy(TaskEntity.builder()
                 .name("previous task")
                 .id(2l)
+                .rank("i")
                 .taskState(TaskStateEntity.builder()
                         .id(2l)
                         .name(" task state")
@@ -620,18 +562,22 @@ class TaskServiceTest {
                                 .build())
                         .build())
                 .build());
-        when(taskRepo.findById(anyLong()))
+        TaskEntity followingTask = TaskEntity.builder()
+                .name("following task")
+                .id(4l)
+                .rank("k")
+                .build();
+        when(taskRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(currTask))
                 .thenReturn(Optional.ofNullable(previousTask))
                 .thenReturn(Optional.empty());
-        when(currTask.getPreviousTask()).thenReturn(Optional.empty());
-        when(currTask.getNextTask()).thenReturn(Optional.empty());
+        when(taskRepo.findAllAfter(2l, "i", 2l, PageRequest.of(0, 2)))
+                .thenReturn(List.of(followingTask));
 
         taskService.changeTaskPosition(1l, Optional.ofNullable(2l), Optional.ofNullable(3l), 1l);
 
-        verify(taskRepo, times(2)).save(any(TaskEntity.class));
-        verify(currTask).setPreviousTask(any(TaskEntity.class));
-        verify(currTask).setNextTask(null);
-        verify(previousTask).setNextTask(any(TaskEntity.class));
+        verify(taskRepo).save(currTask);
+        assertTrue(currTask.getRank().compareTo("i") > 0 && currTask.getRank().compareTo("k") < 0);
+        verify(taskDtoFactory).makeTaskDto(currTask, 2l, 4l);
     }
-}
\ No newline at end of file
+}
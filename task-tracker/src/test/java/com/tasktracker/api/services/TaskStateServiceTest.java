@@ -1,12 +1,16 @@
 package com.tasktracker.api.services;
 
+import com.tasktracker.api.dto.BoardSnapshotDto;
 import com.tasktracker.api.dto.TaskStateDto;
+import com.tasktracker.api.events.TaskStateRebalanceEvent;
 import com.tasktracker.api.exceptions.BadRequestException;
+import com.tasktracker.api.exceptions.NotFoundException;
 import com.tasktracker.api.factories.TaskStateDtoFactory;
 import com.tasktracker.store.entities.BoardEntity;
 import com.tasktracker.store.entities.TaskStateEntity;
 import com.tasktracker.store.repositories.BoardRepo;
 import com.tasktracker.store.repositories.TaskStateRepo;
+import jakarta.persistence.EntityManager;
 import org.junit.Before;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -14,8 +18,9 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ContextConfiguration;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import static org.junit.Assert.*;
@@ -40,6 +45,15 @@ class TaskStateServiceTest {
     @Mock
     private BoardRepo boardRepo;
 
+    @Mock
+    private TaskStateRebalancer taskStateRebalancer;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
 
     @Before
     public void setUp() throws Exception {
@@ -57,6 +71,28 @@ class TaskStateServiceTest {
         Mockito.verify(board).getTaskStates();
     }
 
+    @Test
+    void shouldGetBoardSnapshot() {
+        when(boardRepo.findContentVersion(anyLong(), anyLong())).thenReturn(Optional.of(3l));
+
+        BoardSnapshotDto snapshot = taskStateService.getBoardSnapshot(1l, 1l);
+
+        assertEquals(Long.valueOf(3l), snapshot.getContentVersion());
+        verify(taskStateRepo).findBoardSnapshot(1l);
+        verify(taskStateDtoFactory).makeTaskStateDtoListFromRows(anyList());
+        verify(boardRepo, never()).findByPersonIdAndId(anyLong(), anyLong());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenBoardIsMissingGettingBoardSnapshot() {
+        when(boardRepo.findContentVersion(anyLong(), anyLong())).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundException.class, () -> {
+            taskStateService.getBoardSnapshot(1l, 1l);
+        });
+        verify(taskStateRepo, never()).findBoardSnapshot(anyLong());
+    }
+
     @Test
     void shouldCreateTaskState() {
         BoardEntity board = mock(BoardEntity.class);
@@ -72,17 +108,22 @@ class TaskStateServiceTest {
                 .id(1l)
                 .name(taskStateName)
                 .build();
-        when(boardRepo.findByPersonIdAndId(anyLong(), anyLong())).thenReturn(Optional.ofNullable(board));
-        when(board.getTaskStates()).thenReturn(Collections.emptyList());
+        when(boardRepo.findLockedByPersonIdAndId(anyLong(), anyLong())).thenReturn(Optional.ofNullable(board));
+        when(taskStateRepo.findTaskStateEntityByBoardIdAndNameIgnoreCase(boardId, taskStateName))
+                .thenReturn(Optional.empty());
+        when(taskStateRepo.findFirstByBoardIdOrderByPositionDescIdDesc(boardId))
+                .thenReturn(Optional.of(TaskStateEntity.builder().id(2l).position(1024l).build()));
         when(taskStateRepo.saveAndFlush(any(TaskStateEntity.class)))
-                .thenReturn(taskStateEntity)
                 .thenReturn(taskStateEntity);
-        when(taskStateDtoFactory.makeTaskStateDto(any(TaskStateEntity.class)))
+        when(taskStateDtoFactory.makeTaskStateDto(any(TaskStateEntity.class), any(), any()))
                 .thenReturn(taskStateDto);
 
         TaskStateDto resultTaskStateDto = taskStateService.createTaskState(boardId, taskStateName, personId);
 
         assertEquals(taskStateDto, resultTaskStateDto);
+        verify(taskStateRepo).saveAndFlush(argThat(taskState -> taskState.getPosition() == 2048l));
+        verify(taskStateDtoFactory).makeTaskStateDto(taskStateEntity, 2l, null);
+        verify(board, never()).getTaskStates();
     }
 
     @Test
@@ -95,11 +136,11 @@ class TaskStateServiceTest {
     @Test
     void shouldThrowExceptionWhenNameIsSameCreatingTaskState() {
         BoardEntity board = mock(BoardEntity.class);
-        when(boardRepo.findByPersonIdAndId(anyLong(), anyLong())).thenReturn(Optional.ofNullable(board));
-        when(board.getTaskStates()).thenReturn(List.of(
-               TaskStateEntity.builder()
-                       .name("test")
-                       .build() ));
+        when(boardRepo.findLockedByPersonIdAndId(anyLong(), anyLong())).thenReturn(Optional.ofNullable(board));
+        when(taskStateRepo.findTaskStateEntityByBoardIdAndNameIgnoreCase(anyLong(), anyString()))
+                .thenReturn(Optional.of(TaskStateEntity.builder()
+                        .name("TEST")
+                        .build()));
 
 
         assertThrows(BadRequestException.class, () -> {
@@ -118,7 +159,7 @@ class TaskStateServiceTest {
                         .personId(1l)
                         .build())
                 .build());
-        when(taskStateRepo.findById(anyLong()))
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(taskState));
         when(taskStateRepo.findTaskStateEntityByBoardIdAndNameIgnoreCase(anyLong(), anyString()))
                 .thenReturn(Optional.empty());
@@ -150,7 +191,7 @@ class TaskStateServiceTest {
                 .name("test 2")
                 .id(2l)
                 .build());
-        when(taskStateRepo.findById(anyLong()))
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(taskState));
 
         when(taskStateRepo.findTaskStateEntityByBoardIdAndNameIgnoreCase(anyLong(), anyString()))
@@ -171,7 +212,7 @@ class TaskStateServiceTest {
                         .personId(1l)
                         .build())
                 .build());
-        when(taskStateRepo.findById(anyLong()))
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(taskState));
 
         taskStateService.deleteTuskState(1l, Optional.of(true), 1l);
@@ -180,7 +221,7 @@ class TaskStateServiceTest {
     }
 
     @Test
-    void shouldDeleteTuskStateWithNoNeighbors() {
+    void shouldDeleteTuskState() {
         TaskStateEntity taskState = spy(TaskStateEntity.builder()
                 .name("test")
                 .id(1l)
@@ -189,185 +230,286 @@ class TaskStateServiceTest {
                         .personId(1l)
                         .build())
                 .build());
-        when(taskStateRepo.findById(anyLong()))
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(taskState));
 
         taskStateService.deleteTuskState(1l, Optional.of(false), 1l);
 
-        verify(taskState).getPreviousTaskState();
-        verify(taskState).getNextTaskState();
         verify(taskStateRepo, never()).save(any(TaskStateEntity.class));
         verify(taskStateRepo).deleteById(anyLong());
     }
+
     @Test
-    void shouldDeleteTuskStateWithLeftNeighbor() {
+    void shouldChangeTaskStatePosition() {
+        BoardEntity board = BoardEntity.builder()
+                .id(2l)
+                .name("test board")
+                .personId(1l)
+                .build();
         TaskStateEntity taskState = spy(TaskStateEntity.builder()
-            .name("test")
-            .id(1l)
-            .board(BoardEntity.builder()
-                    .id(1l)
-                    .personId(1l)
-                    .build())
-            .build());
-        TaskStateEntity leftTaskState = spy(TaskStateEntity.builder()
-                .name("test 2")
+                .id(1l)
+                .name("test")
+                .position(1024l)
+                .board(board)
+                .build());
+        TaskStateEntity previousTaskState = spy(TaskStateEntity.builder()
                 .id(2l)
+                .name("previous")
+                .position(2048l)
+                .board(board)
+                .build());
+        TaskStateEntity nextTaskState = spy(TaskStateEntity.builder()
+                .id(3l)
+                .name("next")
+                .position(3072l)
+                .board(board)
                 .build());
-        when(taskState.getPreviousTaskState()).thenReturn(Optional.ofNullable(leftTaskState));
-        when(taskStateRepo.findById(anyLong()))
-                .thenReturn(Optional.ofNullable(taskState));
 
-        taskStateService.deleteTuskState(1l, Optional.of(false), 1l);
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
+                .thenReturn(Optional.ofNullable(taskState))
+                .thenReturn(Optional.ofNullable(previousTaskState))
+                .thenReturn(Optional.ofNullable(nextTaskState));
 
-        verify(leftTaskState).setNextTaskState(null);
-        verify(taskStateRepo).deleteById(anyLong());
+        taskStateService.changeTaskStatePosition(1l, Optional.of(2l), Optional.of(3l), 1l);
 
+        verify(taskState).setPosition(2560l);
+        verify(taskStateRepo).save(taskState);
+        verify(previousTaskState, never()).setPosition(anyLong());
+        verify(nextTaskState, never()).setPosition(anyLong());
+        verify(taskStateRebalancer, never()).rebalance(anyLong());
+        verify(eventPublisher, never()).publishEvent(any());
+        verify(taskStateRepo).findAllByBoardIdOrderByPositionAscIdAsc(2l);
     }
+
     @Test
-    void shouldDeleteTuskStateWithBothNeighbors() {
+    void shouldChangeTaskStatePositionWhenNextTaskStateIsMissing() {
+        BoardEntity board = BoardEntity.builder()
+                .id(2l)
+                .name("test board")
+                .personId(1l)
+                .build();
         TaskStateEntity taskState = spy(TaskStateEntity.builder()
-                .name("test")
                 .id(1l)
-                .board(BoardEntity.builder()
-                        .id(1l)
-                        .personId(1l)
-                        .build())
+                .name("test")
+                .position(1024l)
+                .board(board)
                 .build());
-        TaskStateEntity leftTaskState = spy(TaskStateEntity.builder()
-                .name("test 2")
+        TaskStateEntity previousTaskState = spy(TaskStateEntity.builder()
                 .id(2l)
+                .name("previous")
+                .position(2048l)
+                .board(board)
                 .build());
-        TaskStateEntity rightTaskState = spy(TaskStateEntity.builder()
-                .name("test 3")
-                .id(3l)
-                .build());
-        when(taskState.getPreviousTaskState()).thenReturn(Optional.ofNullable(leftTaskState));
-        when(taskState.getNextTaskState()).thenReturn(Optional.ofNullable(rightTaskState));
-        when(taskStateRepo.findById(anyLong()))
-                .thenReturn(Optional.ofNullable(taskState));
 
-        taskStateService.deleteTuskState(1l, Optional.of(false), 1l);
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
+                .thenReturn(Optional.ofNullable(taskState))
+                .thenReturn(Optional.ofNullable(previousTaskState));
+        when(taskStateRepo.findAllAfter(2l, 2048l, 2l, PageRequest.of(0, 2)))
+                .thenReturn(List.of(taskState));
 
-        verify(taskState).setNextTaskState(null);
-        verify(taskState).setPreviousTaskState(null);
-        verify(taskStateRepo).deleteById(anyLong());
+        taskStateService.changeTaskStatePosition(1l, Optional.of(2l), Optional.empty(), 1l);
+
+        verify(taskState).setPosition(3072l);
+        verify(taskStateRepo).save(taskState);
     }
 
     @Test
-    void shouldChangeTaskStatePosition() {
+    void shouldChangeTaskStatePositionWhenPreviousTaskStateIsMissing() {
+        BoardEntity board = BoardEntity.builder()
+                .id(2l)
+                .name("test board")
+                .personId(1l)
+                .build();
         TaskStateEntity taskState = spy(TaskStateEntity.builder()
                 .id(1l)
                 .name("test")
-                .board(BoardEntity.builder()
-                        .id(2l)
-                        .name("test board")
-                        .personId(1l)
-                        .build())
+                .position(3072l)
+                .board(board)
                 .build());
-
-        TaskStateEntity previousTaskState = spy(TaskStateEntity.builder()
+        TaskStateEntity previousTaskState = TaskStateEntity.builder()
                 .id(2l)
                 .name("previous")
-                .board(BoardEntity.builder()
-                        .id(2l)
-                        .name("test board")
-                        .personId(1l)
-                        .build())
-                .build());
-
+                .position(1024l)
+                .board(board)
+                .build();
         TaskStateEntity nextTaskState = spy(TaskStateEntity.builder()
-                .id(2l)
+                .id(3l)
                 .name("next")
-                .board(BoardEntity.builder()
-                        .id(2l)
-                        .name("test board")
-                        .personId(1l)
-                        .build())
+                .position(2048l)
+                .board(board)
                 .build());
 
-        when(taskStateRepo.findById(anyLong()))
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(taskState))
-                .thenReturn(Optional.ofNullable(previousTaskState))
                 .thenReturn(Optional.ofNullable(nextTaskState));
+        when(taskStateRepo.findAllBefore(2l, 2048l, 3l, PageRequest.of(0, 2)))
+                .thenReturn(List.of(previousTaskState));
 
+        taskStateService.changeTaskStatePosition(1l, Optional.empty(), Optional.of(3l), 1l);
 
-        taskStateService.changeTaskStatePosition(1l, Optional.of( 2l), Optional.of(3l), 1l);
-
-        verify(previousTaskState).setNextTaskState(any(TaskStateEntity.class));
-        verify(nextTaskState).setPreviousTaskState(any(TaskStateEntity.class));
-        verify(taskStateRepo, times(3)).save(any(TaskStateEntity.class));
-        verify(taskState).setNextTaskState(any(TaskStateEntity.class));
-        verify(taskState).setPreviousTaskState(any(TaskStateEntity.class));
+        verify(taskState).setPosition(1536l);
+        verify(taskStateRepo).save(taskState);
     }
+
     @Test
-    void shouldChangeTaskStatePositionWhenNextTaskStateIsMissing() {
+    void shouldRebalanceWhenNoGapLeftChangingTaskStatePosition() {
+        BoardEntity board = BoardEntity.builder()
+                .id(2l)
+                .name("test board")
+                .personId(1l)
+                .build();
         TaskStateEntity taskState = spy(TaskStateEntity.builder()
                 .id(1l)
                 .name("test")
-                .board(BoardEntity.builder()
-                        .id(2l)
-                        .name("test board")
-                        .personId(1l)
-                        .build())
+                .position(5000l)
+                .board(board)
                 .build());
-
-        TaskStateEntity previousTaskState = spy(TaskStateEntity.builder()
+        TaskStateEntity previousTaskState = TaskStateEntity.builder()
                 .id(2l)
                 .name("previous")
-                .board(BoardEntity.builder()
-                        .id(2l)
-                        .name("test board")
-                        .personId(1l)
-                        .build())
-                .build());
-
+                .position(1024l)
+                .board(board)
+                .build();
+        TaskStateEntity nextTaskState = TaskStateEntity.builder()
+                .id(3l)
+                .name("next")
+                .position(1025l)
+                .board(board)
+                .build();
 
-        when(taskStateRepo.findById(anyLong()))
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(taskState))
-                .thenReturn(Optional.ofNullable(previousTaskState));
-
+                .thenReturn(Optional.ofNullable(previousTaskState))
+                .thenReturn(Optional.ofNullable(nextTaskState));
+        doAnswer(invocation -> {
+            previousTaskState.setPosition(1024l);
+            nextTaskState.setPosition(2048l);
+            return null;
+        }).when(taskStateRebalancer).rebalance(2l);
 
-        taskStateService.changeTaskStatePosition(1l, Optional.of( 2l), Optional.empty(), 1l);
+        taskStateService.changeTaskStatePosition(1l, Optional.of(2l), Optional.of(3l), 1l);
 
-        verify(previousTaskState).setNextTaskState(any(TaskStateEntity.class));
-        verify(taskStateRepo, times(2)).save(any(TaskStateEntity.class));
-        verify(taskState).setNextTaskState(null);
-        verify(taskState).setPreviousTaskState(any(TaskStateEntity.class));
+        verify(taskStateRebalancer).rebalance(2l);
+        verify(taskState).setPosition(1536l);
     }
 
     @Test
-    void shouldChangeTaskStatePositionWhenPreviousTaskStateIsMissing() {
+    void shouldRebalanceWhenNeighboursAreTiedChangingTaskStatePosition() {
+        BoardEntity board = BoardEntity.builder()
+                .id(2l)
+                .name("test board")
+                .personId(1l)
+                .build();
         TaskStateEntity taskState = spy(TaskStateEntity.builder()
                 .id(1l)
                 .name("test")
-                .board(BoardEntity.builder()
-                        .id(2l)
-                        .name("test board")
-                        .personId(1l)
-                        .build())
+                .position(5000l)
+                .board(board)
                 .build());
+        TaskStateEntity previousTaskState = TaskStateEntity.builder()
+                .id(2l)
+                .name("previous")
+                .position(1024l)
+                .board(board)
+                .build();
+        TaskStateEntity nextTaskState = TaskStateEntity.builder()
+                .id(3l)
+                .name("next")
+                .position(1024l)
+                .board(board)
+                .build();
 
-        TaskStateEntity nextTaskState = spy(TaskStateEntity.builder()
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
+                .thenReturn(Optional.ofNullable(taskState))
+                .thenReturn(Optional.ofNullable(previousTaskState));
+        when(taskStateRepo.findAllAfter(2l, 1024l, 2l, PageRequest.of(0, 2)))
+                .thenReturn(List.of(nextTaskState));
+        doAnswer(invocation -> {
+            previousTaskState.setPosition(1024l);
+            nextTaskState.setPosition(2048l);
+            return null;
+        }).when(taskStateRebalancer).rebalance(2l);
+
+        taskStateService.changeTaskStatePosition(1l, Optional.of(2l), Optional.empty(), 1l);
+
+        verify(taskStateRebalancer).rebalance(2l);
+        verify(entityManager).refresh(nextTaskState);
+        verify(taskState).setPosition(1536l);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenTiedNeighboursAreReversedChangingTaskStatePosition() {
+        BoardEntity board = BoardEntity.builder()
+                .id(2l)
+                .name("test board")
+                .personId(1l)
+                .build();
+        TaskStateEntity taskState = TaskStateEntity.builder()
+                .id(1l)
+                .name("test")
+                .position(5000l)
+                .board(board)
+                .build();
+        TaskStateEntity previousTaskState = TaskStateEntity.builder()
+                .id(3l)
+                .name("previous")
+                .position(1024l)
+                .board(board)
+                .build();
+        TaskStateEntity nextTaskState = TaskStateEntity.builder()
                 .id(2l)
                 .name("next")
-                .board(BoardEntity.builder()
-                        .id(2l)
-                        .name("test board")
-                        .personId(1l)
-                        .build())
-                .build());
+                .position(1024l)
+                .board(board)
+                .build();
 
-        when(taskStateRepo.findById(anyLong()))
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(taskState))
+                .thenReturn(Optional.ofNullable(previousTaskState))
                 .thenReturn(Optional.ofNullable(nextTaskState));
 
+        assertThrows(BadRequestException.class, () -> {
+            taskStateService.changeTaskStatePosition(1l, Optional.of(3l), Optional.of(2l), 1l);
+        });
+        verify(taskStateRebalancer, never()).rebalance(anyLong());
+    }
 
-        taskStateService.changeTaskStatePosition(1l, Optional.empty(), Optional.of(3l), 1l);
+    @Test
+    void shouldRequestRebalanceWhenGapIsSmallChangingTaskStatePosition() {
+        BoardEntity board = BoardEntity.builder()
+                .id(2l)
+                .name("test board")
+                .personId(1l)
+                .build();
+        TaskStateEntity taskState = TaskStateEntity.builder()
+                .id(1l)
+                .name("test")
+                .position(5000l)
+                .board(board)
+                .build();
+        TaskStateEntity previousTaskState = TaskStateEntity.builder()
+                .id(2l)
+                .name("previous")
+                .position(1024l)
+                .board(board)
+                .build();
+        TaskStateEntity nextTaskState = TaskStateEntity.builder()
+                .id(3l)
+                .name("next")
+                .position(1030l)
+                .board(board)
+                .build();
+
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
+                .thenReturn(Optional.ofNullable(taskState))
+                .thenReturn(Optional.ofNullable(previousTaskState))
+                .thenReturn(Optional.ofNullable(nextTaskState));
+
+        taskStateService.changeTaskStatePosition(1l, Optional.of(2l), Optional.of(3l), 1l);
 
-        verify(nextTaskState).setPreviousTaskState(any(TaskStateEntity.class));
-        verify(taskStateRepo, times(2)).save(any(TaskStateEntity.class));
-        verify(taskState).setNextTaskState(any(TaskStateEntity.class));
-        verify(taskState).setPreviousTaskState(null);
+        assertEquals(Long.valueOf(1027l), taskState.getPosition());
+        verify(taskStateRebalancer, never()).rebalance(anyLong());
+        verify(eventPublisher).publishEvent(new TaskStateRebalanceEvent(2l));
     }
 
     @Test
@@ -419,7 +561,7 @@ class TaskStateServiceTest {
                         .build())
                 .build());
 
-        when(taskStateRepo.findById(anyLong()))
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(taskState))
                 .thenReturn(Optional.ofNullable(previousTaskState))
                 .thenReturn(Optional.ofNullable(nextTaskState));
@@ -451,7 +593,7 @@ class TaskStateServiceTest {
                         .personId(1l)
                         .build())
                 .build());
-        when(taskStateRepo.findById(anyLong()))
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(taskState))
                 .thenReturn(Optional.ofNullable(nextTaskState));
 
@@ -487,7 +629,7 @@ class TaskStateServiceTest {
                         .personId(1l)
                         .build())
                 .build());
-        when(taskStateRepo.findById(anyLong()))
+        when(taskStateRepo.findByIdAndPersonId(anyLong(), anyLong()))
                 .thenReturn(Optional.ofNullable(taskState))
                 .thenReturn(Optional.ofNullable(previousTaskState));
 
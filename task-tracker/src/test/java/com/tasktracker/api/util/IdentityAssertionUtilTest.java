@@ -0,0 +1,50 @@
+package com.tasktracker.api.util;
+
+import com.tasktracker.api.exceptions.UnauthorizedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdentityAssertionUtilTest {
+
+    private final IdentityAssertionUtil identityAssertionUtil =
+            new IdentityAssertionUtil("identity secret", Duration.ofSeconds(30));
+
+    @Test
+    void shouldAcceptSignedAssertion() {
+        String assertion = identityAssertionUtil.sign(7l, System.currentTimeMillis());
+
+        assertTrue(identityAssertionUtil.isEnabled());
+        assertEquals(7l, identityAssertionUtil.verify(assertion));
+    }
+
+    @Test
+    void shouldRejectAssertionForAnotherPerson() {
+        String assertion = identityAssertionUtil.sign(7l, System.currentTimeMillis());
+
+        assertThrows(UnauthorizedException.class, () -> identityAssertionUtil.verify("8" + assertion.substring(1)));
+    }
+
+    @Test
+    void shouldRejectAssertionSignedWithAnotherKey() {
+        String assertion = new IdentityAssertionUtil("another secret", Duration.ofSeconds(30))
+                .sign(7l, System.currentTimeMillis());
+
+        assertThrows(UnauthorizedException.class, () -> identityAssertionUtil.verify(assertion));
+    }
+
+    @Test
+    void shouldRejectStaleAssertion() {
+        String assertion = identityAssertionUtil.sign(7l, System.currentTimeMillis() - 60_000);
+
+        assertThrows(UnauthorizedException.class, () -> identityAssertionUtil.verify(assertion));
+        assertThrows(UnauthorizedException.class, () -> identityAssertionUtil.verify("7"));
+    }
+
+    @Test
+    void shouldBeDisabledWithoutSecret() {
+        assertFalse(new IdentityAssertionUtil("", Duration.ofSeconds(30)).isEnabled());
+    }
+}
@@ -0,0 +1,63 @@
+package com.tasktracker.api.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares verifying the same token on every request, looking it up among the verified tokens
+ * and checking the gateway's identity assertion instead.
+ * Run with {@code ./gradlew benchmark --tests '*JWTUtilBenchmark'}, it is excluded from the regular test task.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JWTUtilBenchmark {
+
+    private JWTUtil jwtUtil;
+    private IdentityAssertionUtil identityAssertionUtil;
+    private String token;
+    private String assertion;
+
+    @Setup
+    public void setUp() {
+        identityAssertionUtil = new IdentityAssertionUtil("benchmark identity", Duration.ofHours(1));
+        jwtUtil = new JWTUtil("benchmark", 10_000, new SimpleMeterRegistry(), identityAssertionUtil);
+        token = jwtUtil.generateToken(1l);
+        assertion = identityAssertionUtil.sign(1l, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public Long verifyEveryTime() {
+        return jwtUtil.verifyTokenAndRetrieveClaim(token);
+    }
+
+    @Benchmark
+    public Long verifiedTokens() {
+        return jwtUtil.validateTokenAndRetrieveClaim(token);
+    }
+
+    @Benchmark
+    public Long identityAssertion() {
+        return identityAssertionUtil.verify(assertion);
+    }
+
+    @Test
+    void run() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JWTUtilBenchmark.class.getName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,67 @@
+package com.tasktracker.api.util;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JWTUtilTest {
+
+    private static final String SECRET = "secret";
+
+    private SimpleMeterRegistry meterRegistry;
+    private JWTUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtUtil = new JWTUtil(SECRET, 100, meterRegistry, new IdentityAssertionUtil("", Duration.ofSeconds(30)));
+    }
+
+    @Test
+    void shouldVerifyTokenOnce() {
+        String token = jwtUtil.generateToken(7l);
+
+        assertEquals(7l, jwtUtil.validateTokenAndRetrieveClaim(token));
+        assertEquals(7l, jwtUtil.validateTokenAndRetrieveClaim(token));
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "verified-tokens").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void shouldRejectTamperedToken() {
+        String token = jwtUtil.generateToken(7l);
+        jwtUtil.validateTokenAndRetrieveClaim(token);
+
+        String forged = JWT.create()
+                .withSubject("User details")
+                .withIssuer("authorization-service")
+                .withClaim("id", 8l)
+                .withExpiresAt(Instant.now().plusSeconds(60))
+                .sign(Algorithm.HMAC256("another secret"));
+
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.validateTokenAndRetrieveClaim(forged));
+    }
+
+    @Test
+    void shouldNotRememberExpiredToken() {
+        String expired = JWT.create()
+                .withSubject("User details")
+                .withIssuer("authorization-service")
+                .withClaim("id", 7l)
+                .withExpiresAt(Instant.now().minusSeconds(60))
+                .sign(Algorithm.HMAC256(SECRET));
+
+        assertThrows(TokenExpiredException.class, () -> jwtUtil.validateTokenAndRetrieveClaim(expired));
+        assertThrows(TokenExpiredException.class, () -> jwtUtil.validateTokenAndRetrieveClaim(expired));
+    }
+}
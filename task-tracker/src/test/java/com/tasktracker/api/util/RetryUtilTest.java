@@ -0,0 +1,60 @@
+package com.tasktracker.api.util;
+
+import com.tasktracker.api.exceptions.ConflictException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryUtilTest {
+
+    private RetryUtil retryUtil;
+
+    @BeforeEach
+    void setUp() {
+        retryUtil = new RetryUtil();
+        ReflectionTestUtils.setField(retryUtil, "maxAttempts", 3);
+        ReflectionTestUtils.setField(retryUtil, "backoffMillis", 1l);
+    }
+
+    @Test
+    void shouldRetryUntilOperationSucceeds() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryUtil.retryOnConflict(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("task", 1l);
+            }
+            return "moved";
+        });
+
+        assertEquals("moved", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void shouldThrowConflictWhenAttemptsAreExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ConflictException.class, () -> retryUtil.retryOnConflict(() -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("task", 1l);
+        }));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void shouldNotRetryOtherFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> retryUtil.retryOnConflict(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException();
+        }));
+        assertEquals(1, attempts.get());
+    }
+}
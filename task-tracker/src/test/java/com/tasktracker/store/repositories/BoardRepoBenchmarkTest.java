@@ -0,0 +1,118 @@
+package com.tasktracker.store.repositories;
+
+import com.tasktracker.store.entities.BoardEntity;
+import com.tasktracker.store.migrations.IndexMigration;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures board prefix search as the number of boards per person grows, with the old
+ * {@code upper(name) like} query and the {@code lower(name) like} one served by the expression index.
+ * <p>
+ * Run with {@code ./gradlew benchmark}, it is excluded from the regular test task. The expression index
+ * only exists on PostgreSQL, on H2 both queries scan the person's boards. To see the difference, run it with
+ * the {@code postgres} profile, see {@code application-postgres.yml}:
+ * {@code SPRING_PROFILES_ACTIVE=postgres TEST_DATASOURCE_URL=jdbc:postgresql://localhost:5432/scratch ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.show_sql=false")
+// the datasource of the active profile, H2 unless the postgres profile is active
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(IndexMigration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BoardRepoBenchmarkTest {
+
+    private static final int[] BOARD_COUNTS = {1_000, 10_000, 50_000};
+    private static final int QUERY_COUNT = 200;
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    @Autowired
+    private BoardRepo boardRepo;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(42);
+
+    @AfterEach
+    void tearDown() {
+        boardRepo.deleteAllInBatch();
+    }
+
+    @Test
+    void searchBoardsByPrefix() {
+        int boardCount = 0;
+        for (int targetCount : BOARD_COUNTS) {
+            List<BoardEntity> boards = new ArrayList<>(targetCount - boardCount);
+            for (; boardCount < targetCount; boardCount++) {
+                boards.add(BoardEntity.builder().name(randomName(8)).personId(1l).build());
+            }
+            boardRepo.saveAll(boards);
+            analyze();
+
+            double upperMicros = measure(prefix -> entityManager
+                    .createQuery("select b from BoardEntity b where b.personId = :personId " +
+                            "and upper(b.name) like upper(:pattern)", BoardEntity.class)
+                    .setParameter("personId", 1l)
+                    .setParameter("pattern", prefix + "%")
+                    .getResultList()
+                    .size());
+            double lowerMicros = measure(prefix -> boardRepo.findAllByPersonIdAndLowerNameLike(1l, prefix + "%").size());
+
+            System.out.printf("%,7d boards: upper(name) like %,10.1f us, lower(name) like %,10.1f us%n",
+                    targetCount, upperMicros, lowerMicros);
+        }
+
+        assertEquals(BOARD_COUNTS[BOARD_COUNTS.length - 1], boardRepo.count());
+    }
+
+    private double measure(PrefixQuery query) {
+        // warm up statement caches and plans before timing
+        for (int i = 0; i < QUERY_COUNT / 10; i++) {
+            query.run(randomName(3));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            query.run(randomName(3));
+        }
+        return (System.nanoTime() - start) / 1_000.0 / QUERY_COUNT;
+    }
+
+    private void analyze() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if ("PostgreSQL".equals(database)) {
+            jdbcTemplate.execute("analyze board");
+        }
+    }
+
+    private String randomName(int length) {
+        StringBuilder name = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            name.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return name.toString();
+    }
+
+    @FunctionalInterface
+    private interface PrefixQuery {
+        int run(String prefix);
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import java.util.List;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
@@ -37,19 +38,42 @@ class BoardRepoTest {
     }
 
     @Test
-    void findAllByNameStartingWithIgnoreCaseAndPersonId() {
+    void findAllByPersonIdAndLowerNameLike() {
         BoardEntity firstBoard = BoardEntity.builder()
-                .name("test")
+                .name("Test")
                 .personId(1l)
                 .build();
         BoardEntity secondBoard = BoardEntity.builder()
                 .name("tomato")
                 .personId(1l)
                 .build();
+        BoardEntity thirdBoard = BoardEntity.builder()
+                .name("tea")
+                .personId(2l)
+                .build();
         firstBoard = boardRepo.saveAndFlush(firstBoard);
         secondBoard = boardRepo.saveAndFlush(secondBoard);
+        thirdBoard = boardRepo.saveAndFlush(thirdBoard);
 
-        List<BoardEntity> boards = boardRepo.findAllByNameStartingWithIgnoreCaseAndPersonId("te", 1l);
+        List<BoardEntity> boards = boardRepo.findAllByPersonIdAndLowerNameLike(1l, "te%");
+
+        assertTrue(boards.contains(firstBoard));
+        assertTrue(!boards.contains(secondBoard));
+        assertTrue(!boards.contains(thirdBoard));
+    }
+
+    @Test
+    void findAllByPersonIdAndLowerNameLikeWithEscapedWildcard() {
+        BoardEntity firstBoard = boardRepo.saveAndFlush(BoardEntity.builder()
+                .name("t_1")
+                .personId(1l)
+                .build());
+        BoardEntity secondBoard = boardRepo.saveAndFlush(BoardEntity.builder()
+                .name("tx1")
+                .personId(1l)
+                .build());
+
+        List<BoardEntity> boards = boardRepo.findAllByPersonIdAndLowerNameLike(1l, "t\\_%");
 
         assertTrue(boards.contains(firstBoard));
         assertTrue(!boards.contains(secondBoard));
@@ -111,4 +135,18 @@ class BoardRepoTest {
         assertTrue(boards.size()==1);
         assertTrue(boards.contains(secondBoard));
     }
-}
\ No newline at end of file
+
+    @Test
+    void incrementContentVersionSurvivesSavingStaleBoard() {
+        BoardEntity board = boardRepo.saveAndFlush(BoardEntity.builder()
+                .name("test")
+                .personId(1l)
+                .build());
+
+        boardRepo.incrementContentVersion(board.getId());
+        board.setName("renamed");
+        boardRepo.saveAndFlush(board);
+
+        assertEquals(Optional.of(1l), boardRepo.findContentVersion(board.getId(), 1l));
+    }
+}
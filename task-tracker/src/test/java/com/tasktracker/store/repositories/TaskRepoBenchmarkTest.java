@@ -0,0 +1,149 @@
+package com.tasktracker.store.repositories;
+
+import com.tasktracker.store.entities.BoardEntity;
+import com.tasktracker.store.entities.TaskEntity;
+import com.tasktracker.store.entities.TaskStateEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Inserts 10k tasks the way the services used to (one flush per task), into a table with identity ids
+ * (which Hibernate can't batch) and with batched inserts. Run with {@code ./gradlew benchmark},
+ * it is excluded from the regular test task.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.show_sql=false")
+class TaskRepoBenchmarkTest {
+
+    private static final int TASK_COUNT = 10_000;
+
+    @Autowired
+    private TaskRepo taskRepo;
+    @Autowired
+    private BoardRepo boardRepo;
+    @Autowired
+    private TaskStateRepo taskStateRepo;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private TaskStateEntity taskState;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        BoardEntity board = boardRepo.save(BoardEntity.builder()
+                .name("benchmark")
+                .personId(0l)
+                .build());
+        taskState = taskStateRepo.saveAndFlush(TaskStateEntity.builder()
+                .name("benchmark")
+                .position(1024l)
+                .board(board)
+                .build());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    void insertTasks() {
+        Result flushPerTask = measure("flush per task", () -> {
+            for (TaskEntity task : makeTasks("flushed")) {
+                taskRepo.saveAndFlush(task);
+                entityManager.clear();
+            }
+        });
+        Result identity = measure("identity ids", () -> {
+            for (int i = 0; i < TASK_COUNT; i++) {
+                entityManager.persist(new IdentityTask("identity " + i, String.format("identity%05d", i),
+                        taskState.getId()));
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        Result batched = measure("batched", () -> {
+            taskRepo.saveAll(makeTasks("batched"));
+            entityManager.flush();
+            entityManager.clear();
+        });
+
+        assertEquals(2 * TASK_COUNT, taskRepo.count());
+        assertTrue(batched.statements() * 10 < flushPerTask.statements());
+        assertTrue(batched.statements() * 10 < identity.statements());
+    }
+
+    private List<TaskEntity> makeTasks(String prefix) {
+        TaskStateEntity taskStateReference = entityManager.getEntityManager()
+                .getReference(TaskStateEntity.class, taskState.getId());
+        List<TaskEntity> tasks = new ArrayList<>(TASK_COUNT);
+        for (int i = 0; i < TASK_COUNT; i++) {
+            tasks.add(TaskEntity.builder()
+                    .name(prefix + " " + i)
+                    .rank(String.format("%s%05d", prefix, i))
+                    .taskState(taskStateReference)
+                    .build());
+        }
+        return tasks;
+    }
+
+    private Result measure(String name, Runnable insert) {
+        statistics.clear();
+        long start = System.nanoTime();
+        insert.run();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        Result result = new Result(statistics.getPrepareStatementCount(), millis);
+        System.out.printf("%-15s %,d tasks: %,d statements, %,d ms%n", name, TASK_COUNT, result.statements(), millis);
+        return result;
+    }
+
+    private record Result(long statements, long millis) {
+    }
+
+    /**
+     * A task with the identity id the entities had before the sequences, only used as a baseline.
+     */
+    @Entity
+    @Table(name = "benchmark_identity_task")
+    static class IdentityTask {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        @Column(name = "id")
+        private Long id;
+        @Column(name = "name")
+        private String name;
+        @Column(name = "rank")
+        private String rank;
+        @Column(name = "task_state_id")
+        private Long taskStateId;
+
+        protected IdentityTask() {
+        }
+
+        IdentityTask(String name, String rank, Long taskStateId) {
+            this.name = name;
+            this.rank = rank;
+            this.taskStateId = taskStateId;
+        }
+    }
+}
@@ -2,9 +2,11 @@ package com.tasktracker.store.repositories;
 
 import com.tasktracker.store.entities.BoardEntity;
 import com.tasktracker.store.entities.TaskStateEntity;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
 import java.util.Collections;
 import java.util.List;
@@ -16,11 +18,13 @@ class TaskStateRepoTest {
 
     private final TaskStateRepo taskStateRepo;
     private final BoardRepo boardRepo;
+    private final TestEntityManager entityManager;
 
     @Autowired
-    TaskStateRepoTest(TaskStateRepo taskStateRepo, BoardRepo boardRepo) {
+    TaskStateRepoTest(TaskStateRepo taskStateRepo, BoardRepo boardRepo, TestEntityManager entityManager) {
         this.taskStateRepo = taskStateRepo;
         this.boardRepo = boardRepo;
+        this.entityManager = entityManager;
     }
 
     @Test
@@ -62,4 +66,63 @@ class TaskStateRepoTest {
 
         assertTrue(taskStateList.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByIdAndPersonIdChecksOwnerWithoutBoard() {
+        BoardEntity board = boardRepo.saveAndFlush(BoardEntity.builder()
+                .name("test")
+                .personId(1l)
+                .build());
+        TaskStateEntity taskState = taskStateRepo.saveAndFlush(TaskStateEntity.builder()
+                .name("test")
+                .board(board)
+                .personId(1l)
+                .build());
+        entityManager.clear();
+
+        TaskStateEntity foundTaskState = taskStateRepo.findByIdAndPersonId(taskState.getId(), 1l).get();
+
+        assertFalse(Hibernate.isInitialized(foundTaskState.getBoard()));
+        assertFalse(Hibernate.isInitialized(foundTaskState.getTasks()));
+        assertEquals(board.getId(), foundTaskState.getBoardId());
+        assertTrue(taskStateRepo.findByIdAndPersonId(taskState.getId(), 2l).isEmpty());
+        assertFalse(taskStateRepo.existsByIdAndPersonId(taskState.getId(), 2l));
+    }
+
+    @Test
+    void renumberPositionsKeepsOrderOfTiedTaskStates() {
+        BoardEntity board = boardRepo.saveAndFlush(BoardEntity.builder()
+                .name("test")
+                .personId(1l)
+                .build());
+        TaskStateEntity first = taskStateRepo.saveAndFlush(TaskStateEntity.builder()
+                .name("first")
+                .position(1024l)
+                .board(board)
+                .personId(1l)
+                .build());
+        TaskStateEntity second = taskStateRepo.saveAndFlush(TaskStateEntity.builder()
+                .name("second")
+                .position(1024l)
+                .board(board)
+                .personId(1l)
+                .build());
+        TaskStateEntity third = taskStateRepo.saveAndFlush(TaskStateEntity.builder()
+                .name("third")
+                .position(1025l)
+                .board(board)
+                .personId(1l)
+                .build());
+        Long version = first.getVersion();
+
+        int updated = taskStateRepo.renumberPositions(board.getId(), 1024l);
+        entityManager.clear();
+
+        assertEquals(3, updated);
+        assertEquals(List.of(first.getId(), second.getId(), third.getId()),
+                taskStateRepo.findAllByBoardIdOrderByPositionAscIdAsc(board.getId()).stream().map(TaskStateEntity::getId).toList());
+        assertEquals(List.of(1024l, 2048l, 3072l),
+                taskStateRepo.findAllByBoardIdOrderByPositionAscIdAsc(board.getId()).stream().map(TaskStateEntity::getPosition).toList());
+        assertEquals(version + 1, taskStateRepo.findById(first.getId()).get().getVersion());
+    }
+}
@@ -2,3 +2,6 @@ truncate table Person restart identity cascade;
 truncate table Board restart identity cascade;
 truncate table Task_state restart identity cascade;
 truncate table Task restart identity cascade;
+alter sequence board_seq restart with 1000;
+alter sequence task_state_seq restart with 1000;
+alter sequence task_seq restart with 1000;
@@ -1,3 +1,3 @@
 INSERT INTO Person (username, password) VALUES ('test', 'test_password');
-INSERT INTO Board (name, person_id) VALUES ('test board', 1);
-INSERT INTO Board (name, person_id) VALUES ('test board 2', 1);
+INSERT INTO Board (id, name, person_id) VALUES (1, 'test board', 1);
+INSERT INTO Board (id, name, person_id) VALUES (2, 'test board 2', 1);
@@ -0,0 +1,10 @@
+INSERT INTO Person (username, password) VALUES ('test', 'test_password');
+INSERT INTO Board (id, name, person_id) VALUES (1, 'test board', 1);
+INSERT INTO Task_state (id, name, board_id, position, person_id) values (1, 'first', 1, 2048, 1);
+INSERT INTO Task_state (id, name, board_id, position, person_id) values (2, 'second', 1, 1024, 1);
+INSERT INTO Task_state (id, name, board_id, position, person_id) values (3, 'third', 1, 3072, 1);
+INSERT INTO Task (id, name, description, task_state_id, rank, person_id) values (1, 'first', null, 1, 'k', 1);
+INSERT INTO Task (id, name, description, task_state_id, rank, person_id) values (2, 'second', 'description', 1, 'i', 1);
+INSERT INTO Task (id, name, description, task_state_id, rank, person_id) values (3, 'third', null, 1, 'j', 1);
+INSERT INTO Task (id, name, description, task_state_id, rank, person_id) values (4, 'fourth', null, 2, 'i', 1);
+INSERT INTO Task (id, name, description, task_state_id, rank, person_id) values (5, 'fifth', null, 2, 'j', 1);
@@ -0,0 +1,8 @@
+INSERT INTO Board (id, name, person_id) VALUES (1, 'first board', 1);
+INSERT INTO Board (id, name, person_id) VALUES (2, 'second board', 2);
+INSERT INTO Task_state (id, name, board_id, position, person_id) values (1, 'todo', 1, 1024, 1);
+INSERT INTO Task_state (id, name, board_id, position, person_id) values (2, 'todo', 2, 1024, 2);
+INSERT INTO Task (id, name, description, task_state_id, rank, person_id) values (1, 'deploy gateway', 'roll out the gateway cache', 1, 'i', 1);
+INSERT INTO Task (id, name, description, task_state_id, rank, person_id) values (2, 'fix gateway timeout', null, 1, 'j', 1);
+INSERT INTO Task (id, name, description, task_state_id, rank, person_id) values (3, 'write docs', 'list the gateway routes', 1, 'k', 1);
+INSERT INTO Task (id, name, description, task_state_id, rank, person_id) values (4, 'gateway', null, 2, 'i', 2);
@@ -0,0 +1,5 @@
+INSERT INTO Person (username, password) VALUES ('test', 'test_password');
+INSERT INTO Board (id, name, person_id) VALUES (1, 'test board', 1);
+INSERT INTO Task_state (id, name, board_id, position, person_id) values (1, 'first', 1, 1024, 1);
+INSERT INTO Task_state (id, name, board_id, position, person_id) values (2, 'second', 1, 1024, 1);
+INSERT INTO Task_state (id, name, board_id, position, person_id) values (3, 'third', 1, 2048, 1);